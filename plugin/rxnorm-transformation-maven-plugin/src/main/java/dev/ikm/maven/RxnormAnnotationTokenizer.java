@@ -0,0 +1,316 @@
+package dev.ikm.maven;
+
+/**
+ * Single forward-scanning tokenizer for the AnnotationAssertion axioms of an RxNorm class block.
+ * <p>
+ * Each {@code AnnotationAssertion(...)} is read once and dispatched on its property name, which
+ * replaces compiling and running one regular expression per property for every block. The values
+ * extracted are the same as those of the former regular expressions: the first occurrence wins
+ * for single valued properties, every occurrence is kept for NDC codes and Tallman synonyms, and
+ * an NDC code is only taken when it carries an endDate and a startDate annotation.
+ * <p>
+ * The tokenizer works over any {@link CharSequence}, so a block does not have to be copied into a
+ * String before it is scanned. Values are materialized with {@code subSequence(...).toString()}.
+ */
+public final class RxnormAnnotationTokenizer {
+    private static final String ANNOTATION_ASSERTION = "AnnotationAssertion(";
+    private static final String ANNOTATION = "Annotation(";
+    private static final String NDC_END_DATE = "Annotation(:endDate \"";
+    private static final String NDC_START_DATE = "\") Annotation(:startDate \"";
+    private static final String ANNOTATION_CLOSE = "\") ";
+
+    private static final String SNOMEDCT_PREFIX = "SNOMEDCT:";
+    private static final String RXCUI_PREFIX = "RxCUI:";
+    private static final String VUID_PREFIX = "VUID:";
+
+    // Single valued properties, only the first occurrence in a block is kept
+    private static final int RXNORM_NAME = 1;
+    private static final int RXNORM_SYNONYM = 1 << 1;
+    private static final int PRESCRIBABLE_SYNONYM = 1 << 2;
+    private static final int SNOMEDCT_ID = 1 << 3;
+    private static final int RXCUI_ID = 1 << 4;
+    private static final int VUID_ID = 1 << 5;
+    private static final int QUALITATIVE_DISTINCTION = 1 << 6;
+    private static final int QUANTITY = 1 << 7;
+    private static final int SCHEDULE = 1 << 8;
+    private static final int HUMAN_DRUG = 1 << 9;
+    private static final int VET_DRUG = 1 << 10;
+
+    private RxnormAnnotationTokenizer() {
+    }
+
+    /**
+     * Extracts every supported annotation of a class block into the RxnormData
+     *
+     * @param block class block
+     * @param data RxnormData to populate
+     */
+    public static void tokenize(CharSequence block, RxnormData data) {
+        int seen = 0;
+        int length = block.length();
+        int position = 0;
+
+        while ((position = indexOf(block, ANNOTATION_ASSERTION, position)) >= 0) {
+            position += ANNOTATION_ASSERTION.length();
+            int cursor = position;
+
+            // Axiom annotations, only the endDate/startDate pair of an NDC code is kept
+            String ndcEndDate = null;
+            if (startsWith(block, cursor, NDC_END_DATE)) {
+                int endDateStart = cursor + NDC_END_DATE.length();
+                int endDateEnd = skipDigits(block, endDateStart);
+                int startDateStart = endDateEnd + NDC_START_DATE.length();
+                int startDateEnd = skipDigits(block, startDateStart);
+                if (endDateEnd > endDateStart && startsWith(block, endDateEnd, NDC_START_DATE)
+                        && startDateEnd > startDateStart && startsWith(block, startDateEnd, ANNOTATION_CLOSE)) {
+                    ndcEndDate = block.subSequence(endDateStart, endDateEnd).toString();
+                    cursor = startDateEnd + ANNOTATION_CLOSE.length();
+                }
+            }
+            while (startsWith(block, cursor, ANNOTATION)) {
+                cursor = skipBalanced(block, cursor + ANNOTATION.length() - 1);
+                if (cursor < 0) {
+                    return;
+                }
+                while (cursor < length && block.charAt(cursor) == ' ') {
+                    cursor++;
+                }
+                ndcEndDate = null;
+            }
+
+            // Property, subject and literal: <property> <subject> "literal"
+            int propertyStart = cursor;
+            while (cursor < length && !isPropertyEnd(block.charAt(cursor))) {
+                cursor++;
+            }
+            int propertyEnd = cursor;
+            if (propertyEnd == propertyStart || !startsWith(block, cursor, " <")) {
+                continue;
+            }
+            int subjectStart = cursor + 2;
+            int subjectEnd = indexOf(block, '>', subjectStart);
+            if (subjectEnd <= subjectStart || !startsWith(block, subjectEnd, "> \"")) {
+                continue;
+            }
+            int literalStart = subjectEnd + 3;
+            int literalEnd = indexOf(block, '"', literalStart);
+            if (literalEnd < 0) {
+                return;
+            }
+            position = literalEnd + 1;
+
+            int localNameStart = localNameStart(block, propertyStart, propertyEnd);
+            if (localNameStart < 0) {
+                continue;
+            }
+            switch (propertyEnd - localNameStart) {
+                case 3 -> {
+                    if (regionEquals(block, localNameStart, propertyEnd, "ndc")
+                            && localNameStart == propertyStart + 1 && ndcEndDate != null
+                            && position < length && block.charAt(position) == ')') {
+                        data.addNdcCodeWithEndDate(block.subSequence(literalStart, literalEnd).toString(), ndcEndDate);
+                    }
+                }
+                case 9 -> {
+                    if (regionEquals(block, localNameStart, propertyEnd, "hasDbXref")
+                            && endsWith(block, propertyStart, propertyEnd, "oboInOwl:hasDbXref")) {
+                        if ((seen & SNOMEDCT_ID) == 0 && startsWith(block, literalStart, SNOMEDCT_PREFIX)) {
+                            seen |= SNOMEDCT_ID;
+                            data.setSnomedCtId(xrefValue(block, literalStart + SNOMEDCT_PREFIX.length(), literalEnd));
+                        } else if ((seen & RXCUI_ID) == 0 && startsWith(block, literalStart, RXCUI_PREFIX)) {
+                            seen |= RXCUI_ID;
+                            data.setRxCuiId(xrefValue(block, literalStart + RXCUI_PREFIX.length(), literalEnd));
+                        } else if ((seen & VUID_ID) == 0 && startsWith(block, literalStart, VUID_PREFIX)) {
+                            seen |= VUID_ID;
+                            data.setVuidId(xrefValue(block, literalStart + VUID_PREFIX.length(), literalEnd));
+                        }
+                    }
+                }
+                case 8 -> {
+                    if ((seen & QUANTITY) == 0 && regionEquals(block, localNameStart, propertyEnd, "QUANTITY")) {
+                        seen |= QUANTITY;
+                        data.setQuantity(block.subSequence(literalStart, literalEnd).toString());
+                    } else if ((seen & SCHEDULE) == 0 && regionEquals(block, localNameStart, propertyEnd, "SCHEDULE")) {
+                        seen |= SCHEDULE;
+                        data.setSchedule(block.subSequence(literalStart, literalEnd).toString());
+                    } else if ((seen & VET_DRUG) == 0 && regionEquals(block, localNameStart, propertyEnd, "VET_DRUG")) {
+                        seen |= VET_DRUG;
+                        data.setVetDrug(block.subSequence(literalStart, literalEnd).toString());
+                    }
+                }
+                case 10 -> {
+                    if ((seen & HUMAN_DRUG) == 0 && regionEquals(block, localNameStart, propertyEnd, "HUMAN_DRUG")) {
+                        seen |= HUMAN_DRUG;
+                        data.setHumanDrug(block.subSequence(literalStart, literalEnd).toString());
+                    }
+                }
+                case 11 -> {
+                    if ((seen & RXNORM_NAME) == 0 && regionEquals(block, localNameStart, propertyEnd, "RxNorm_Name")) {
+                        seen |= RXNORM_NAME;
+                        data.setRxnormName(block.subSequence(literalStart, literalEnd).toString());
+                    }
+                }
+                case 14 -> {
+                    if ((seen & RXNORM_SYNONYM) == 0 && regionEquals(block, localNameStart, propertyEnd, "RxNorm_Synonym")) {
+                        seen |= RXNORM_SYNONYM;
+                        data.setRxnormSynonym(block.subSequence(literalStart, literalEnd).toString());
+                    }
+                }
+                case 15 -> {
+                    if (regionEquals(block, localNameStart, propertyEnd, "Tallman_Synonym")) {
+                        data.addTallmanSynonym(block.subSequence(literalStart, literalEnd).toString());
+                    }
+                }
+                case 20 -> {
+                    if ((seen & PRESCRIBABLE_SYNONYM) == 0
+                            && regionEquals(block, localNameStart, propertyEnd, "Prescribable_Synonym")) {
+                        seen |= PRESCRIBABLE_SYNONYM;
+                        data.setPrescribableSynonym(block.subSequence(literalStart, literalEnd).toString());
+                    }
+                }
+                case 23 -> {
+                    if ((seen & QUALITATIVE_DISTINCTION) == 0
+                            && regionEquals(block, localNameStart, propertyEnd, "QUALITATIVE_DISTINCTION")) {
+                        seen |= QUALITATIVE_DISTINCTION;
+                        data.setQualitativeDistinction(block.subSequence(literalStart, literalEnd).toString());
+                    }
+                }
+                default -> {
+                    // Not an RxNorm annotation, e.g. rdfs:label
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the URI of the class a block describes, the first {@code <...>} in the block
+     *
+     * @param block class block
+     * @return the URI, or null if the block has none
+     */
+    public static String classUri(CharSequence block) {
+        int from = 0;
+        int start;
+        while ((start = indexOf(block, '<', from)) >= 0) {
+            int end = indexOf(block, '>', start + 1);
+            if (end < 0) {
+                return null;
+            }
+            if (end > start + 1) {
+                return block.subSequence(start + 1, end).toString();
+            }
+            from = start + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Local name of a property token, the text after its last ':'
+     */
+    private static int localNameStart(CharSequence block, int propertyStart, int propertyEnd) {
+        for (int i = propertyEnd - 1; i >= propertyStart; i--) {
+            if (block.charAt(i) == ':') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isPropertyEnd(char c) {
+        return c == ' ' || c == '(' || c == ')' || c == '"' || c == '\n';
+    }
+
+    private static String xrefValue(CharSequence block, int start, int end) {
+        while (start < end && isWhitespace(block.charAt(start))) {
+            start++;
+        }
+        return block.subSequence(start, end).toString();
+    }
+
+    /**
+     * Same characters as the regular expression class \s
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipDigits(CharSequence block, int position) {
+        int length = block.length();
+        while (position < length && block.charAt(position) >= '0' && block.charAt(position) <= '9') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * @param openParen index of an opening parenthesis
+     * @return index just after the matching closing parenthesis, or -1 if it is never closed
+     */
+    private static int skipBalanced(CharSequence block, int openParen) {
+        int depth = 0;
+        boolean inLiteral = false;
+        for (int i = openParen; i < block.length(); i++) {
+            char c = block.charAt(i);
+            if (inLiteral) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inLiteral = false;
+                }
+            } else if (c == '"') {
+                inLiteral = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(CharSequence sequence, char c, int from) {
+        if (sequence instanceof String string) {
+            return string.indexOf(c, from);
+        }
+        for (int i = Math.max(from, 0); i < sequence.length(); i++) {
+            if (sequence.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(CharSequence sequence, String target, int from) {
+        if (sequence instanceof String string) {
+            return string.indexOf(target, from);
+        }
+        char first = target.charAt(0);
+        int last = sequence.length() - target.length();
+        for (int i = Math.max(from, 0); i <= last; i++) {
+            if (sequence.charAt(i) == first && startsWith(sequence, i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean startsWith(CharSequence sequence, int offset, String prefix) {
+        if (offset < 0 || offset + prefix.length() > sequence.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (sequence.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean endsWith(CharSequence sequence, int start, int end, String suffix) {
+        return end - start >= suffix.length() && startsWith(sequence, end - suffix.length(), suffix);
+    }
+
+    private static boolean regionEquals(CharSequence sequence, int start, int end, String expected) {
+        return end - start == expected.length() && startsWith(sequence, start, expected);
+    }
+}
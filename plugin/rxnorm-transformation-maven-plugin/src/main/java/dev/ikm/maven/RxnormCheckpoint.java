@@ -0,0 +1,200 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Checkpoint of a transformation run, kept as a properties file in the data output directory of the run.
+ * <p>
+ * The checkpoint records how many concepts, in the order they are composed, have been committed and
+ * saved to the datastore, with the content hash of the source (and of the previous release in delta
+ * mode) and the datastore they were written to. A restarted run against the same inputs and datastore
+ * can skip those concepts instead of starting again from an empty datastore. The datastore is identified
+ * by its path and by a random id written into the datastore directory with the first checkpoint, so a
+ * datastore deleted and built again at the same path, for example by a clean build, is not taken for the
+ * one the concepts were committed to. Concepts are skipped by
+ * position, which relies on the concepts, and in delta mode the retired concepts following them, being
+ * passed in the same order on every run. The file is replaced atomically, so a run that dies while
+ * writing it leaves the previous checkpoint intact.
+ */
+public class RxnormCheckpoint {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormCheckpoint.class.getSimpleName());
+
+    public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    public static final String DATASTORE_ID_FILE_NAME = "rxnorm-checkpoint.id";
+    private static final String SOURCE_HASH = "sourceHash";
+    private static final String PREVIOUS_SOURCE_HASH = "previousSourceHash";
+    private static final String DATASTORE = "datastore";
+    private static final String DATASTORE_ID = "datastoreId";
+    private static final String COMMITTED_CONCEPTS = "committedConcepts";
+    private static final String COMPLETE = "complete";
+
+    private final File file;
+    private final String sourceHash;
+    private final String previousSourceHash;
+    private final File datastore;
+
+    private RxnormCheckpoint(File file, String sourceHash, String previousSourceHash, File datastore) {
+        this.file = file;
+        this.sourceHash = sourceHash;
+        this.previousSourceHash = previousSourceHash;
+        this.datastore = datastore;
+    }
+
+    /**
+     * @param dataOutputDirectory data output directory of the run
+     * @return the checkpoint file of the source in the data output directory
+     */
+    public static File checkpointFileFor(File dataOutputDirectory, RxnormOwlSource source) {
+        return new File(dataOutputDirectory, source.getFile().getName() + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * @param file checkpoint file
+     * @param sourceHash content hash of the RxNorm OWL file or zip being transformed, as hashed for its parsed snapshot
+     * @param previousSourceHash content hash of the previous release in delta mode, or null
+     * @param datastore datastore the concepts are written to
+     * @return the checkpoint of a run with these inputs
+     * @throws IOException if the datastore path cannot be resolved
+     */
+    public static RxnormCheckpoint of(File file, byte[] sourceHash, byte[] previousSourceHash, File datastore) throws IOException {
+        return new RxnormCheckpoint(file,
+                HexFormat.of().formatHex(sourceHash),
+                previousSourceHash == null ? "" : HexFormat.of().formatHex(previousSourceHash),
+                datastore.getCanonicalFile());
+    }
+
+    /**
+     * Skips the concepts committed before a checkpoint, passed in the order they were composed in
+     *
+     * @param concepts concepts to compose, in the order of the run that wrote the checkpoint
+     * @param committedConcepts number of concepts committed before the checkpoint
+     * @return number of concepts skipped, less than committedConcepts only if the concepts ran out
+     */
+    public static int skip(Iterator<RxnormData> concepts, int committedConcepts) {
+        int skipped = 0;
+        while (skipped < committedConcepts && concepts.hasNext()) {
+            concepts.next();
+            skipped++;
+        }
+        return skipped;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of concepts committed by an earlier run with the same inputs and datastore, 0 if
+     * there is no such checkpoint
+     */
+    public int committedConcepts() {
+        Properties properties = load();
+        if (properties == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(properties.getProperty(COMMITTED_CONCEPTS, "0"));
+        } catch (NumberFormatException e) {
+            LOG.warn("Checkpoint {} has no valid concept count, ignoring it", file);
+            return 0;
+        }
+    }
+
+    /**
+     * @return true if an earlier run with the same inputs and datastore composed every concept
+     */
+    public boolean isComplete() {
+        Properties properties = load();
+        return properties != null && Boolean.parseBoolean(properties.getProperty(COMPLETE));
+    }
+
+    /**
+     * Records that the first committedConcepts concepts are committed and saved
+     *
+     * @param complete true once every concept has been composed
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void write(int committedConcepts, boolean complete) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(SOURCE_HASH, sourceHash);
+        properties.setProperty(PREVIOUS_SOURCE_HASH, previousSourceHash);
+        properties.setProperty(DATASTORE, datastore.getPath());
+        properties.setProperty(DATASTORE_ID, datastoreId(true));
+        properties.setProperty(COMMITTED_CONCEPTS, Integer.toString(committedConcepts));
+        properties.setProperty(COMPLETE, Boolean.toString(complete));
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        File temporary = new File(parent, file.getName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary.toPath(), StandardCharsets.UTF_8)) {
+            properties.store(writer, "RxNorm transformation checkpoint");
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("Checkpoint: {} concepts committed{}", committedConcepts, complete ? ", transformation complete" : "");
+    }
+
+    /**
+     * @return the checkpoint properties, or null if there is no checkpoint for these inputs and datastore
+     */
+    private Properties load() {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Cannot read checkpoint " + file + ", ignoring it", e);
+            return null;
+        }
+        if (!sourceHash.equals(properties.getProperty(SOURCE_HASH))
+                || !previousSourceHash.equals(properties.getProperty(PREVIOUS_SOURCE_HASH, ""))
+                || !datastore.getPath().equals(properties.getProperty(DATASTORE))) {
+            LOG.warn("Checkpoint {} was written for other inputs or another datastore, ignoring it", file);
+            return null;
+        }
+        String datastoreId;
+        try {
+            datastoreId = datastoreId(false);
+        } catch (IOException e) {
+            LOG.warn("Cannot read the id of datastore " + datastore + ", ignoring checkpoint " + file, e);
+            return null;
+        }
+        if (datastoreId == null || !datastoreId.equals(properties.getProperty(DATASTORE_ID))) {
+            LOG.warn("Datastore {} was created again since checkpoint {} was written, ignoring it", datastore, file);
+            return null;
+        }
+        return properties;
+    }
+
+    /**
+     * @param create true to write a new id into the datastore directory when it has none
+     * @return the id of the datastore, or null if it has none and create is false
+     */
+    private String datastoreId(boolean create) throws IOException {
+        File idFile = new File(datastore, DATASTORE_ID_FILE_NAME);
+        if (idFile.isFile()) {
+            return Files.readString(idFile.toPath(), StandardCharsets.UTF_8).trim();
+        }
+        if (!create) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        Files.createDirectories(datastore.toPath());
+        Files.writeString(idFile.toPath(), id, StandardCharsets.UTF_8);
+        return id;
+    }
+}
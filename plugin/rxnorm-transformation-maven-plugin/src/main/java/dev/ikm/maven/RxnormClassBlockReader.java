@@ -0,0 +1,85 @@
+package dev.ikm.maven;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads an RxNorm OWL file one class block at a time.
+ * <p>
+ * A class block is the text between two consecutive "# Class: " markers, exactly as produced by
+ * {@code owlContent.split("# Class: ")}, with the text before the first marker skipped. Only the
+ * block being assembled is held in memory, so peak memory is bounded by the largest block rather
+ * than by the size of the file.
+ */
+public class RxnormClassBlockReader implements Iterator<String>, Closeable {
+    public static final String CLASS_DELIMITER = "# Class: ";
+
+    private final BufferedReader reader;
+    private final StringBuilder current = new StringBuilder();
+    private final ArrayDeque<String> ready = new ArrayDeque<>();
+    private boolean inClass = false;
+    private boolean endOfInput = false;
+
+    public RxnormClassBlockReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (ready.isEmpty() && !endOfInput) {
+                readLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return !ready.isEmpty();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return ready.poll();
+    }
+
+    private void readLine() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            endOfInput = true;
+            if (inClass && !current.isEmpty()) {
+                ready.add(current.toString());
+            }
+            current.setLength(0);
+            return;
+        }
+
+        // A line may open one or more new class blocks; everything before a marker closes the current block
+        int from = 0;
+        int markerIndex;
+        while ((markerIndex = line.indexOf(CLASS_DELIMITER, from)) >= 0) {
+            if (inClass) {
+                current.append(line, from, markerIndex);
+                ready.add(current.toString());
+            }
+            current.setLength(0);
+            inClass = true;
+            from = markerIndex + CLASS_DELIMITER.length();
+        }
+        if (inClass) {
+            current.append(line, from, line.length()).append('\n');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,302 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Runs the transformation as three stages connected by bounded queues:
+ * <ol>
+ *     <li>a parser thread reads the parsed concepts and puts them on the concept queue,</li>
+ *     <li>compose workers, on platform or virtual threads, take concepts from that queue and compose them
+ *     into their own {@link RxnormSessionPool}, and hand each Composer to be committed to the commit queue
+ *     whenever the pool's commit interval is reached and once more at the end,</li>
+ *     <li>a committer thread takes the Composers from the commit queue and commits them the way their pool
+ *     would have.</li>
+ * </ol>
+ * Reading, composing and committing thus overlap. A full queue blocks the stage putting on it, so a slow
+ * stage holds back the stages before it instead of letting concepts or pending sessions pile up. Every
+ * reportSeconds, and once at the end, the depth of each queue and the count, throughput and time spent
+ * waiting on a queue of each stage are logged: the stage that rarely waits is the bottleneck.
+ * <p>
+ * If a stage fails, the parser and the compose workers stop at their next hand-off and the compose workers
+ * hand their pending sessions to the committer. The committer commits every Composer handed to it, also
+ * after a failure, until the compose workers have all stopped, and then the first failure is rethrown. So
+ * the concepts composed before a failure are committed, as when composing on one thread.
+ */
+public class RxnormComposePipeline {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormComposePipeline.class.getSimpleName());
+    private static final RxnormData END_OF_CONCEPTS = new RxnormData("");
+    private static final CommitBatch END_OF_COMMITS = new CommitBatch(null, 0, null);
+    private static final long POLL_MILLIS = 100;
+
+    private final int workers;
+    private final boolean virtualThreads;
+    private final BlockingQueue<RxnormData> conceptQueue;
+    private final BlockingQueue<CommitBatch> commitQueue;
+    private final int reportSeconds;
+
+    private final StageStats parseStats = new StageStats();
+    private final StageStats composeStats = new StageStats();
+    private final StageStats commitStats = new StageStats();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private record CommitBatch(Composer composer, int concepts, ObjIntConsumer<Composer> committer) {
+    }
+
+    /**
+     * @param workers number of compose workers
+     * @param virtualThreads run the compose workers on virtual threads instead of platform threads
+     * @param conceptQueueCapacity number of parsed concepts that may wait for a compose worker
+     * @param commitQueueCapacity number of composed Composers that may wait for the committer
+     * @param reportSeconds seconds between progress reports, 0 or less to only report at the end
+     */
+    public RxnormComposePipeline(int workers, boolean virtualThreads, int conceptQueueCapacity, int commitQueueCapacity, int reportSeconds) {
+        this.workers = Math.max(1, workers);
+        this.virtualThreads = virtualThreads;
+        this.conceptQueue = new ArrayBlockingQueue<>(Math.max(1, conceptQueueCapacity));
+        this.commitQueue = new ArrayBlockingQueue<>(Math.max(1, commitQueueCapacity));
+        this.reportSeconds = reportSeconds;
+    }
+
+    /**
+     * @param concepts parsed concepts, read on the parser thread
+     * @param newWorkerSessions creates the session pool, over a new Composer, of the given worker number
+     * @param composeConcept composes one concept with the worker's session pool, called on a compose worker
+     * @return number of concepts composed
+     * @throws InterruptedException if interrupted while waiting for the stages
+     * @throws ExecutionException if a stage failed to read, compose or commit
+     */
+    public int run(Iterator<RxnormData> concepts, IntFunction<RxnormSessionPool> newWorkerSessions,
+                   BiConsumer<RxnormData, RxnormSessionPool> composeConcept) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rxnorm-pipeline-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (reportSeconds > 0) {
+            reporter.scheduleAtFixedRate(() -> report(start), reportSeconds, reportSeconds, TimeUnit.SECONDS);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        try {
+            Thread committer = Thread.ofPlatform().name("rxnorm-commit").start(() -> runStage(this::commitUntilEnd));
+            threads.add(committer);
+
+            Thread.Builder workerBuilder = virtualThreads
+                    ? Thread.ofVirtual().name("rxnorm-compose-", 1)
+                    : Thread.ofPlatform().name("rxnorm-compose-", 1);
+            List<Thread> composeWorkers = new ArrayList<>();
+            for (int worker = 1; worker <= workers; worker++) {
+                RxnormSessionPool sessions = newWorkerSessions.apply(worker);
+                ObjIntConsumer<Composer> poolCommitter = sessions.getCommitter();
+                sessions.withCommitter((composer, conceptCount) -> putCommit(composer, conceptCount, poolCommitter));
+                composeWorkers.add(workerBuilder.start(() -> runStage(() -> composeUntilEnd(sessions, composeConcept))));
+            }
+            threads.addAll(composeWorkers);
+
+            Thread parser = Thread.ofPlatform().name("rxnorm-parse").start(() -> runStage(() -> parseUntilEnd(concepts)));
+            threads.add(parser);
+
+            parser.join();
+            for (Thread composeWorker : composeWorkers) {
+                composeWorker.join();
+            }
+            // The committer takes every Composer handed over until then, so this cannot wait forever
+            commitQueue.put(END_OF_COMMITS);
+            committer.join();
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            throw e;
+        } finally {
+            reporter.shutdownNow();
+        }
+
+        report(start);
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new ExecutionException("Transformation pipeline failed", cause);
+        }
+        return Math.toIntExact(composeStats.count.get());
+    }
+
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Runs a stage and records its failure, so the other stages stop at their next hand-off
+     */
+    private void runStage(Stage stage) {
+        try {
+            stage.run();
+        } catch (CancellationException e) {
+            // Another stage failed first
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void parseUntilEnd(Iterator<RxnormData> concepts) throws InterruptedException {
+        try {
+            while (concepts.hasNext()) {
+                checkNoFailure();
+                RxnormData concept = concepts.next();
+                put(conceptQueue, concept, parseStats);
+                parseStats.count.incrementAndGet();
+            }
+        } finally {
+            for (int worker = 0; worker < workers; worker++) {
+                put(conceptQueue, END_OF_CONCEPTS, parseStats);
+            }
+        }
+    }
+
+    /**
+     * Composes concepts until the end of the concepts, then hands the pending sessions to the committer. The
+     * sessions are handed over even if composing fails, and a failure to hand them over is kept with the
+     * failure that stopped the worker.
+     */
+    private void composeUntilEnd(RxnormSessionPool sessions, BiConsumer<RxnormData, RxnormSessionPool> composeConcept)
+            throws InterruptedException {
+        try {
+            RxnormData concept;
+            while ((concept = take(conceptQueue, composeStats)) != END_OF_CONCEPTS) {
+                checkNoFailure();
+                composeConcept.accept(concept, sessions);
+                sessions.conceptComposed();
+                composeStats.count.incrementAndGet();
+            }
+        } catch (Throwable e) {
+            try {
+                sessions.commit();
+            } catch (Throwable commitFailure) {
+                e.addSuppressed(commitFailure);
+            }
+            throw e;
+        }
+        sessions.commit();
+    }
+
+    /**
+     * Waits for room in the commit queue without giving up on a failure, as the committer takes every
+     * Composer until the end of the commits
+     */
+    private void putCommit(Composer composer, int concepts, ObjIntConsumer<Composer> committer) {
+        long waitStart = System.nanoTime();
+        try {
+            commitQueue.put(new CommitBatch(composer, concepts, committer));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while handing a Composer to the committer");
+        } finally {
+            composeStats.waitNanos.addAndGet(System.nanoTime() - waitStart);
+        }
+    }
+
+    /**
+     * Commits the Composers handed over until the end of the commits, whether or not a stage has failed. A
+     * failed commit is recorded as the failure, or kept with it, and the later Composers are still committed.
+     */
+    private void commitUntilEnd() throws InterruptedException {
+        CommitBatch batch;
+        while (true) {
+            long waitStart = System.nanoTime();
+            try {
+                batch = commitQueue.take();
+            } finally {
+                commitStats.waitNanos.addAndGet(System.nanoTime() - waitStart);
+            }
+            if (batch == END_OF_COMMITS) {
+                return;
+            }
+            try {
+                batch.committer().accept(batch.composer(), batch.concepts());
+                commits.incrementAndGet();
+                commitStats.count.addAndGet(batch.concepts());
+            } catch (Throwable e) {
+                if (!failure.compareAndSet(null, e)) {
+                    failure.get().addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for room in the queue, giving up once another stage has failed so a dead stage cannot block this one forever
+     */
+    private <T> void put(BlockingQueue<T> queue, T item, StageStats stats) throws InterruptedException {
+        long waitStart = System.nanoTime();
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkNoFailure();
+            }
+        } finally {
+            stats.waitNanos.addAndGet(System.nanoTime() - waitStart);
+        }
+    }
+
+    /**
+     * Waits for an item in the queue, giving up once another stage has failed
+     */
+    private <T> T take(BlockingQueue<T> queue, StageStats stats) throws InterruptedException {
+        long waitStart = System.nanoTime();
+        try {
+            T item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                checkNoFailure();
+            }
+            return item;
+        } finally {
+            stats.waitNanos.addAndGet(System.nanoTime() - waitStart);
+        }
+    }
+
+    private void checkNoFailure() {
+        if (failure.get() != null) {
+            throw new CancellationException("Another pipeline stage failed");
+        }
+    }
+
+    private void report(long start) {
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        LOG.info(String.format("Pipeline after %.1f s: concept queue %d/%d, commit queue %d/%d, %s, %s, %s in %d commits",
+                seconds,
+                conceptQueue.size(), conceptQueue.size() + conceptQueue.remainingCapacity(),
+                commitQueue.size(), commitQueue.size() + commitQueue.remainingCapacity(),
+                parseStats.describe(seconds, "parsed"), composeStats.describe(seconds, "composed"),
+                commitStats.describe(seconds, "committed"), commits.get()));
+    }
+
+    /**
+     * Counters of one stage, updated by its threads and read by the reporter. The waiting time of the compose
+     * workers is summed over all workers.
+     */
+    private static final class StageStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        private String describe(double seconds, String verb) {
+            return String.format("%s %d concepts (%.0f/s, %.1f s waiting on queues)",
+                    verb, count.get(), count.get() / seconds, waitNanos.get() / 1e9);
+        }
+    }
+}
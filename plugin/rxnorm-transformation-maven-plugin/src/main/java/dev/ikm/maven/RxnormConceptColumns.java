@@ -0,0 +1,319 @@
+package dev.ikm.maven;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Parsed RxNorm release held column by column.
+ * <p>
+ * Each attribute of {@link RxnormData} is one column, and a concept is addressed by its int row, the
+ * position of the concept in the OWL file. String values are pooled as UTF-8 bytes with an offset per
+ * row, and the NDC codes, their end dates and the Tallman synonyms are value columns with a range of
+ * values per row. The whole release is thus a handful of primitive arrays rather than hundreds of
+ * thousands of small objects, a stage that only needs one attribute scans just that column, and the
+ * arrays can be written to or mapped from disk as they are.
+ */
+public class RxnormConceptColumns {
+
+    /**
+     * Single valued attributes of a concept
+     */
+    public enum Attribute {
+        URI(RxnormData::getUri),
+        RXNORM_NAME(RxnormData::getRxnormName),
+        RXNORM_SYNONYM(RxnormData::getRxnormSynonym),
+        PRESCRIBABLE_SYNONYM(RxnormData::getPrescribableSynonym),
+        SNOMED_CT_ID(RxnormData::getSnomedCtId),
+        RXCUI_ID(RxnormData::getRxCuiId),
+        VUID_ID(RxnormData::getVuidId),
+        QUALITATIVE_DISTINCTION(RxnormData::getQualitativeDistinction),
+        QUANTITY(RxnormData::getQuantity),
+        SCHEDULE(RxnormData::getSchedule),
+        HUMAN_DRUG(RxnormData::getHumanDrug),
+        VET_DRUG(RxnormData::getVetDrug),
+        EQUIVALENT_CLASSES(RxnormData::getEquivalentClassesStr);
+
+        private final Function<RxnormData, String> getter;
+
+        Attribute(Function<RxnormData, String> getter) {
+            this.getter = getter;
+        }
+
+        /**
+         * @return the value of the attribute in the concept
+         */
+        public String get(RxnormData concept) {
+            return getter.apply(concept);
+        }
+    }
+
+    private final int size;
+    private final Map<Attribute, StringColumn> attributes;
+    private final ValueColumn ndcCodes;
+    private final StringColumn ndcEndDates;
+    private final ValueColumn tallmanSynonyms;
+
+    private RxnormConceptColumns(int size, Map<Attribute, StringColumn> attributes, ValueColumn ndcCodes,
+                                 StringColumn ndcEndDates, ValueColumn tallmanSynonyms) {
+        this.size = size;
+        this.attributes = attributes;
+        this.ndcCodes = ndcCodes;
+        this.ndcEndDates = ndcEndDates;
+        this.tallmanSynonyms = tallmanSynonyms;
+    }
+
+    /**
+     * @param concepts parsed concepts, for example from {@link RxnormUtility#streamRxnormData}
+     * @return the concepts as columns, with rows in iteration order
+     */
+    public static RxnormConceptColumns of(Iterator<RxnormData> concepts) {
+        Map<Attribute, StringColumnBuilder> attributeBuilders = new EnumMap<>(Attribute.class);
+        for (Attribute attribute : Attribute.values()) {
+            attributeBuilders.put(attribute, new StringColumnBuilder());
+        }
+        ValueColumnBuilder ndcCodeBuilder = new ValueColumnBuilder();
+        StringColumnBuilder ndcEndDateBuilder = new StringColumnBuilder();
+        ValueColumnBuilder tallmanSynonymBuilder = new ValueColumnBuilder();
+
+        int size = 0;
+        while (concepts.hasNext()) {
+            RxnormData concept = concepts.next();
+            attributeBuilders.forEach((attribute, builder) -> builder.add(attribute.getter.apply(concept)));
+
+            List<String> conceptNdcCodes = concept.getNdcCodes();
+            for (int i = 0; i < conceptNdcCodes.size(); i++) {
+                ndcCodeBuilder.values.add(conceptNdcCodes.get(i));
+                ndcEndDateBuilder.add(concept.getNdcEndDate(i));
+            }
+            ndcCodeBuilder.endRow();
+
+            concept.getTallmanSynonyms().forEach(tallmanSynonymBuilder.values::add);
+            tallmanSynonymBuilder.endRow();
+            size++;
+        }
+
+        Map<Attribute, StringColumn> attributes = new EnumMap<>(Attribute.class);
+        attributeBuilders.forEach((attribute, builder) -> attributes.put(attribute, builder.build()));
+        return new RxnormConceptColumns(size, attributes, ndcCodeBuilder.build(), ndcEndDateBuilder.build(), tallmanSynonymBuilder.build());
+    }
+
+    /**
+     * @return number of concepts
+     */
+    public int size() {
+        return size;
+    }
+
+    public StringColumn column(Attribute attribute) {
+        return attributes.get(attribute);
+    }
+
+    /**
+     * NDC codes of each concept, in the order they were added
+     */
+    public ValueColumn ndcCodes() {
+        return ndcCodes;
+    }
+
+    /**
+     * End date of each value of {@link #ndcCodes()}, indexed like {@link ValueColumn#values()}, null for codes without one
+     */
+    public StringColumn ndcEndDates() {
+        return ndcEndDates;
+    }
+
+    public ValueColumn tallmanSynonyms() {
+        return tallmanSynonyms;
+    }
+
+    /**
+     * Rebuilds the RxnormData of a row
+     */
+    public RxnormData rxnormData(int row) {
+        RxnormData concept = new RxnormData(column(Attribute.URI).get(row));
+        concept.setRxnormName(column(Attribute.RXNORM_NAME).get(row));
+        concept.setRxnormSynonym(column(Attribute.RXNORM_SYNONYM).get(row));
+        concept.setPrescribableSynonym(column(Attribute.PRESCRIBABLE_SYNONYM).get(row));
+        concept.setSnomedCtId(column(Attribute.SNOMED_CT_ID).get(row));
+        concept.setRxCuiId(column(Attribute.RXCUI_ID).get(row));
+        concept.setVuidId(column(Attribute.VUID_ID).get(row));
+        concept.setQualitativeDistinction(column(Attribute.QUALITATIVE_DISTINCTION).get(row));
+        concept.setQuantity(column(Attribute.QUANTITY).get(row));
+        concept.setSchedule(column(Attribute.SCHEDULE).get(row));
+        concept.setHumanDrug(column(Attribute.HUMAN_DRUG).get(row));
+        concept.setVetDrug(column(Attribute.VET_DRUG).get(row));
+        concept.setEquivalentClassesStr(column(Attribute.EQUIVALENT_CLASSES).get(row));
+        for (int value = ndcCodes.firstValue(row); value < ndcCodes.endValue(row); value++) {
+            String endDate = ndcEndDates.get(value);
+            if (endDate == null) {
+                concept.addNdcCode(ndcCodes.values().get(value));
+            } else {
+                concept.addNdcCodeWithEndDate(ndcCodes.values().get(value), endDate);
+            }
+        }
+        for (int value = tallmanSynonyms.firstValue(row); value < tallmanSynonyms.endValue(row); value++) {
+            concept.addTallmanSynonym(tallmanSynonyms.values().get(value));
+        }
+        return concept;
+    }
+
+    /**
+     * Rebuilds the RxnormData of every row, in row order
+     */
+    public Stream<RxnormData> stream() {
+        return IntStream.range(0, size).mapToObj(this::rxnormData);
+    }
+
+    /**
+     * String column: the UTF-8 bytes of all rows in one pool, with the start of each row in an offset array
+     */
+    public static final class StringColumn {
+        private final byte[] pool;
+        private final int[] offsets;
+        private final BitSet nulls;
+
+        private StringColumn(byte[] pool, int[] offsets, BitSet nulls) {
+            this.pool = pool;
+            this.offsets = offsets;
+            this.nulls = nulls;
+        }
+
+        public int size() {
+            return offsets.length - 1;
+        }
+
+        public String get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return new String(pool, offsets[row], byteLength(row), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return length in UTF-8 bytes of the value of the row, 0 for null
+         */
+        public int byteLength(int row) {
+            return offsets[row + 1] - offsets[row];
+        }
+
+        public boolean isEmpty(int row) {
+            return byteLength(row) == 0;
+        }
+
+        /**
+         * @return true if the value of the row is the UTF-8 encoding of the given bytes, without decoding the row
+         */
+        public boolean equalsBytes(int row, byte[] utf8) {
+            return !nulls.get(row) && Arrays.equals(pool, offsets[row], offsets[row + 1], utf8, 0, utf8.length);
+        }
+
+        /**
+         * Passes every row with a non-empty value to the consumer, in row order
+         */
+        public void forEachNonEmpty(IntConsumer rowConsumer) {
+            for (int row = 0; row < offsets.length - 1; row++) {
+                if (offsets[row + 1] != offsets[row]) {
+                    rowConsumer.accept(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Multi valued column: all values in one string column, with the range of values of each row in an offset array
+     */
+    public static final class ValueColumn {
+        private final StringColumn values;
+        private final int[] rowOffsets;
+
+        private ValueColumn(StringColumn values, int[] rowOffsets) {
+            this.values = values;
+            this.rowOffsets = rowOffsets;
+        }
+
+        public StringColumn values() {
+            return values;
+        }
+
+        public int count(int row) {
+            return rowOffsets[row + 1] - rowOffsets[row];
+        }
+
+        /**
+         * @return index in {@link #values()} of the first value of the row
+         */
+        public int firstValue(int row) {
+            return rowOffsets[row];
+        }
+
+        /**
+         * @return index in {@link #values()} after the last value of the row
+         */
+        public int endValue(int row) {
+            return rowOffsets[row + 1];
+        }
+    }
+
+    private static final class StringColumnBuilder {
+        private static final int MAX_POOL_BYTES = Integer.MAX_VALUE - 8;
+
+        private byte[] pool = new byte[1 << 12];
+        private int poolSize;
+        private int[] offsets = new int[1 << 10];
+        private int size;
+        private final BitSet nulls = new BitSet();
+
+        void add(String value) {
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                long required = (long) poolSize + bytes.length;
+                if (required > pool.length) {
+                    if (required > MAX_POOL_BYTES) {
+                        throw new IllegalStateException("String column exceeds " + MAX_POOL_BYTES + " bytes");
+                    }
+                    pool = Arrays.copyOf(pool, (int) Math.min(Math.max((long) pool.length * 2, required), MAX_POOL_BYTES));
+                }
+                System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+                poolSize += bytes.length;
+            }
+            size++;
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[size] = poolSize;
+        }
+
+        StringColumn build() {
+            return new StringColumn(Arrays.copyOf(pool, poolSize), Arrays.copyOf(offsets, size + 1), nulls);
+        }
+    }
+
+    private static final class ValueColumnBuilder {
+        private final StringColumnBuilder values = new StringColumnBuilder();
+        private int[] rowOffsets = new int[1 << 10];
+        private int rows;
+
+        void endRow() {
+            rows++;
+            if (rows == rowOffsets.length) {
+                rowOffsets = Arrays.copyOf(rowOffsets, rowOffsets.length * 2);
+            }
+            rowOffsets[rows] = values.size;
+        }
+
+        ValueColumn build() {
+            return new ValueColumn(values.build(), Arrays.copyOf(rowOffsets, rows + 1));
+        }
+    }
+}
@@ -1,11 +1,32 @@
 package dev.ikm.maven;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Attributes of one RxNorm class parsed from the OWL file.
+ * <p>
+ * A full release holds hundreds of thousands of these, so the representation is kept lean: values
+ * from the small RxNorm vocabularies (human and vet drug flags, schedule, qualitative distinction and
+ * NDC end dates) are shared through a dictionary, the Tallman synonym list is only allocated when a
+ * synonym is added, and NDC codes and their end dates are packed into parallel arrays. The positions
+ * of the NDC codes to transform, the last one added with an end date for each code, are found once after
+ * the codes are added and kept until another code is added.
+ */
 public class RxnormData {
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+    private static final Map<String, String> VALUE_DICTIONARY = new ConcurrentHashMap<>();
+    private static final String[] NO_STRINGS = new String[0];
+    private static final int[] NO_INDEXES = new int[0];
+
     private String id;
     private String uri;
 
@@ -16,16 +37,19 @@ public class RxnormData {
     private String snomedCtId = "";
     private String rxCuiId = "";
     private String vuidId = "";
-    private List<String> ndcCodes = new ArrayList<>();
-    private Map<String, String> ndcCodesWithEndDates = new HashMap<>();
+    private String[] ndcCodes = NO_STRINGS;
+    private String[] ndcEndDates = NO_STRINGS; // null for codes added without an end date
+    private int ndcCount;
+    private volatile int[] latestNdcIndexes; // null until found, and again after a code is added
 
     private String qualitativeDistinction = "";
     private String quantity = "";
     private String schedule = "";
     private String humanDrug = "";
     private String vetDrug = "";
-    private List<String> tallmanSynonyms = new ArrayList<>();
+    private List<String> tallmanSynonyms;
     private String equivalentClassesStr = "";
+    private boolean retired;
 
     public RxnormData(String uri) {
         this.uri = uri;
@@ -34,10 +58,44 @@ public RxnormData(String uri) {
         }
     }
 
+    /**
+     * Returns the shared instance of a value from a small vocabulary. Once the dictionary is full,
+     * values not yet in it are returned as they are.
+     */
+    static String dictionaryValue(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        String shared = VALUE_DICTIONARY.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (VALUE_DICTIONARY.size() >= MAX_DICTIONARY_SIZE) {
+            return value;
+        }
+        shared = VALUE_DICTIONARY.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
     public String getId() {
         return id;
     }
 
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return true for a concept of a previous release that is no longer in the release being transformed
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    public void setRetired(boolean retired) {
+        this.retired = retired;
+    }
+
     public void setRxnormName(String rxnormName) {
         this.rxnormName = rxnormName;
     }
@@ -63,11 +121,11 @@ public void setVuidId(String vuidId) {
     }
 
     public void addNdcCode(String ndcCode) {
-        this.ndcCodes.add(ndcCode);
+        addNdc(ndcCode, null);
     }
 
     public void setQualitativeDistinction(String qualitativeDistinction) {
-        this.qualitativeDistinction = qualitativeDistinction;
+        this.qualitativeDistinction = dictionaryValue(qualitativeDistinction);
     }
 
     public void setQuantity(String quantity) {
@@ -75,18 +133,21 @@ public void setQuantity(String quantity) {
     }
 
     public void setSchedule(String schedule) {
-        this.schedule = schedule;
+        this.schedule = dictionaryValue(schedule);
     }
 
     public void setHumanDrug(String humanDrug) {
-        this.humanDrug = humanDrug;
+        this.humanDrug = dictionaryValue(humanDrug);
     }
 
     public void setVetDrug(String vetDrug) {
-        this.vetDrug = vetDrug;
+        this.vetDrug = dictionaryValue(vetDrug);
     }
 
     public void addTallmanSynonym(String tallmanSynonym) {
+        if (tallmanSynonyms == null) {
+            tallmanSynonyms = new ArrayList<>(2);
+        }
         this.tallmanSynonyms.add(tallmanSynonym);
     }
 
@@ -94,11 +155,82 @@ public void setEquivalentClassesStr(String equivalentClassesStr) {
         this.equivalentClassesStr = equivalentClassesStr;
     }
     public void addNdcCodeWithEndDate(String ndcCode, String endDate) {
-        this.ndcCodes.add(ndcCode); // Keep original list for backward compatibility
-        this.ndcCodesWithEndDates.put(ndcCode, endDate);
+        addNdc(ndcCode, dictionaryValue(endDate));
+    }
+
+    private void addNdc(String ndcCode, String endDate) {
+        if (ndcCount == ndcCodes.length) {
+            int capacity = Math.max(2, ndcCount * 2);
+            ndcCodes = Arrays.copyOf(ndcCodes, capacity);
+            ndcEndDates = Arrays.copyOf(ndcEndDates, capacity);
+        }
+        ndcCodes[ndcCount] = ndcCode;
+        ndcEndDates[ndcCount] = endDate;
+        ndcCount++;
+        latestNdcIndexes = null;
+    }
+
+    /**
+     * @return number of NDC codes added, including codes added more than once
+     */
+    public int ndcCodeCount() {
+        return ndcCount;
+    }
+
+    /**
+     * Passes each NDC code that has an end date to the consumer once, with the end date it was last
+     * added with. This visits the same pairs as {@link #getNdcCodesWithEndDates()} without building the map.
+     *
+     * @param consumer accepts the NDC code and its end date
+     */
+    public void forEachNdcCode(BiConsumer<String, String> consumer) {
+        for (int i : latestNdcIndexes()) {
+            consumer.accept(ndcCodes[i], ndcEndDates[i]);
+        }
+    }
+
+    /**
+     * @return positions of the NDC codes last added with an end date, in the order they were added
+     */
+    private int[] latestNdcIndexes() {
+        int[] indexes = latestNdcIndexes;
+        if (indexes == null) {
+            indexes = findLatestNdcIndexes();
+            latestNdcIndexes = indexes;
+        }
+        return indexes;
     }
 
+    private int[] findLatestNdcIndexes() {
+        if (ndcCount == 0) {
+            return NO_INDEXES;
+        }
+        // Walk back from the last code, so the first position seen of each code is the one it was last added at
+        int[] indexes = new int[ndcCount];
+        int found = 0;
+        Set<String> seen = new HashSet<>(ndcCount * 2);
+        for (int i = ndcCount - 1; i >= 0; i--) {
+            if (ndcEndDates[i] != null && seen.add(ndcCodes[i])) {
+                indexes[found++] = i;
+            }
+        }
+        int[] latest = new int[found];
+        for (int i = 0; i < found; i++) {
+            latest[i] = indexes[found - 1 - i];
+        }
+        return latest;
+    }
+
+    /**
+     * @return NDC codes that have an end date, mapped to the end date they were last added with. The
+     * map is built on each call, prefer {@link #forEachNdcCode(BiConsumer)} for iterating.
+     */
     public Map<String, String> getNdcCodesWithEndDates() {
+        int[] indexes = latestNdcIndexes();
+        Map<String, String> ndcCodesWithEndDates = HashMap.newHashMap(indexes.length);
+        for (int i : indexes) {
+            ndcCodesWithEndDates.put(ndcCodes[i], ndcEndDates[i]);
+        }
         return ndcCodesWithEndDates;
     }
 
@@ -127,8 +259,21 @@ public String getVuidId() {
         return vuidId;
     }
 
+    /**
+     * @return every NDC code in the order it was added
+     */
     public List<String> getNdcCodes() {
-        return ndcCodes;
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(ndcCodes, ndcCount)));
+    }
+
+    /**
+     * @return end date of the NDC code at the given position of {@link #getNdcCodes()}, or null if it was added without one
+     */
+    public String getNdcEndDate(int index) {
+        if (index < 0 || index >= ndcCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return ndcEndDates[index];
     }
 
     public String getQualitativeDistinction(){
@@ -152,7 +297,7 @@ public String getVetDrug() {
     }
 
     public List<String> getTallmanSynonyms(){
-        return tallmanSynonyms;
+        return tallmanSynonyms == null ? List.of() : Collections.unmodifiableList(tallmanSynonyms);
     }
 
     public String getEquivalentClassesStr() {
@@ -0,0 +1,21 @@
+package dev.ikm.maven;
+
+/**
+ * Stage of the transformation run alone, to measure it without the cost of the other stages
+ */
+public enum RxnormDryRunMode {
+    /**
+     * Parse the OWL file and report statistics on the parsed concepts, without starting the datastore
+     */
+    PARSE,
+    /**
+     * Parse the OWL file up front, then compose the concepts into an ephemeral in-memory store that is
+     * discarded at the end of the run
+     */
+    COMPOSE;
+
+    /**
+     * Name of the ephemeral in-memory store controller of data-ephemeral-provider, the default store of the COMPOSE dry run
+     */
+    public static final String EPHEMERAL_CONTROLLER_NAME = "Load Ephemeral Store";
+}
@@ -0,0 +1,131 @@
+package dev.ikm.maven;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Java Flight Recorder events of the RxNorm transformation hot paths, and the recording the mojo can start.
+ * <p>
+ * The events are cheap when no recording is running, and by default only record calls slower than a
+ * threshold, so a production-sized run can be recorded to find slow outlier concepts with low overhead.
+ * They are shown under "RxNorm" in JDK Mission Control, or with {@code jfr print --categories RxNorm}.
+ */
+public final class RxnormFlightRecorder {
+
+    private RxnormFlightRecorder() {
+    }
+
+    /**
+     * Parsing of one "# Class: " block of the OWL file
+     */
+    @Name("dev.ikm.rxnorm.ParseBlock")
+    @Label("RxNorm Parse Block")
+    @Category({"RxNorm", "Parse"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class ParseBlockEvent extends Event {
+        @Label("RxNorm Id")
+        public String rxnormId;
+
+        @Label("Block Size")
+        @Description("Size of the class block, counted in characters, one byte each for the ASCII content of the OWL file")
+        @DataAmount(DataAmount.BYTES)
+        public int blockSize;
+
+        @Label("NDC Codes")
+        public int ndcCodes;
+
+        @Label("Tallman Synonyms")
+        public int tallmanSynonyms;
+    }
+
+    /**
+     * Rewriting of the URIs of one OWL expression by {@link RxnormUtility#transformOwlString}
+     */
+    @Name("dev.ikm.rxnorm.TransformOwlString")
+    @Label("RxNorm Transform OWL String")
+    @Category({"RxNorm", "Compose"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class TransformOwlStringEvent extends Event {
+        @Label("Expression Size")
+        @DataAmount(DataAmount.BYTES)
+        public int expressionSize;
+
+        @Label("Transformed Size")
+        @DataAmount(DataAmount.BYTES)
+        public int transformedSize;
+    }
+
+    /**
+     * Composition of one concept and its semantics
+     */
+    @Name("dev.ikm.rxnorm.ComposeConcept")
+    @Label("RxNorm Compose Concept")
+    @Category({"RxNorm", "Compose"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class ComposeConceptEvent extends Event {
+        @Label("RxNorm Id")
+        public String rxnormId;
+
+        @Label("Retired")
+        public boolean retired;
+
+        @Label("Semantics")
+        @Description("Number of semantics composed for the concept")
+        public int semantics;
+
+        @Label("NDC Codes")
+        public int ndcCodes;
+    }
+
+    /**
+     * Commit of the sessions of one Composer
+     */
+    @Name("dev.ikm.rxnorm.Commit")
+    @Label("RxNorm Commit")
+    @Category({"RxNorm", "Commit"})
+    @StackTrace(false)
+    public static final class CommitEvent extends Event {
+        @Label("Concepts")
+        @Description("Number of concepts composed into the committed Composer")
+        public int concepts;
+    }
+
+    /**
+     * Starts a recording with the given JDK configuration and the RxNorm events enabled
+     *
+     * @param destination file the recording is written to when it is stopped
+     * @param configuration name of a JDK configuration, "default" or "profile"
+     * @param threshold minimum duration of the recorded parse, transform and compose events
+     * @return the running recording, to stop once the transformation is done
+     * @throws IOException if the configuration or the destination cannot be used
+     * @throws ParseException if the configuration cannot be parsed
+     */
+    public static Recording startRecording(File destination, String configuration, Duration threshold) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration(configuration));
+        recording.setName("RxNorm transformation");
+        recording.setToDisk(true);
+        recording.setDestination(destination.toPath());
+        recording.enable(ParseBlockEvent.class).withThreshold(threshold);
+        recording.enable(TransformOwlStringEvent.class).withThreshold(threshold);
+        recording.enable(ComposeConceptEvent.class).withThreshold(threshold);
+        recording.enable(CommitEvent.class);
+        recording.start();
+        return recording;
+    }
+}
@@ -0,0 +1,160 @@
+package dev.ikm.maven;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Memory-mapped view of an RxNorm OWL file.
+ * <p>
+ * The file is mapped with {@link FileChannel#map} and scanned in place. Class blocks are located
+ * as byte offsets and exposed as {@link CharSequence} views over the mapped bytes, so the parser
+ * only allocates a String for the values it keeps in {@link RxnormData}. The mapping is shared and
+ * may be read from several threads; it is released when this file is closed.
+ */
+public class RxnormMappedOwlFile implements Closeable {
+    private static final byte[] CLASS_DELIMITER = RxnormClassBlockReader.CLASS_DELIMITER.getBytes(StandardCharsets.UTF_8);
+
+    private final FileChannel channel;
+    private final Arena arena;
+    private final MemorySegment segment;
+
+    public RxnormMappedOwlFile(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.arena = Arena.ofShared();
+        try {
+            this.segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return segment.byteSize();
+    }
+
+    /**
+     * @param from offset to start searching at
+     * @return offset of the next "# Class: " marker at or after from, or -1 if there is none
+     */
+    public long indexOfClassDelimiter(long from) {
+        long last = segment.byteSize() - CLASS_DELIMITER.length;
+        byte first = CLASS_DELIMITER[0];
+        for (long i = Math.max(from, 0); i <= last; i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, i) == first && matchesDelimiter(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matchesDelimiter(long offset) {
+        for (int i = 1; i < CLASS_DELIMITER.length; i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, offset + i) != CLASS_DELIMITER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Class blocks of the whole file, in file order
+     */
+    public Iterator<CharSequence> blocks() {
+        return blocks(0, size());
+    }
+
+    /**
+     * Class blocks whose "# Class: " marker starts in [from, to). Each block extends to the next
+     * marker, or to the end of the file, even when that lies beyond to.
+     */
+    public Iterator<CharSequence> blocks(long from, long to) {
+        return new Iterator<>() {
+            private long marker = indexOfClassDelimiter(from);
+
+            @Override
+            public boolean hasNext() {
+                return marker >= 0 && marker < to;
+            }
+
+            @Override
+            public CharSequence next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long start = marker + CLASS_DELIMITER.length;
+                marker = indexOfClassDelimiter(start);
+                long end = marker < 0 ? size() : marker;
+                return new MappedCharSequence(segment, start, Math.toIntExact(end - start));
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            arena.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Byte-per-char view of a region of the mapping. Delimiters in the OWL syntax are ASCII, and no
+     * byte of a multi-byte UTF-8 sequence is in the ASCII range, so scanning bytes as chars finds the
+     * same structure as scanning the decoded text. {@link #toString()} decodes the region as UTF-8 and
+     * normalizes line breaks to '\n', matching text read with {@code BufferedReader.readLine}.
+     */
+    static final class MappedCharSequence implements CharSequence {
+        private final MemorySegment segment;
+        private final long offset;
+        private final int length;
+
+        MappedCharSequence(MemorySegment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) (segment.get(ValueLayout.JAVA_BYTE, offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new MappedCharSequence(segment, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = segment.asSlice(offset, length).toArray(ValueLayout.JAVA_BYTE);
+            String text = new String(bytes, StandardCharsets.UTF_8);
+            if (text.indexOf('\r') < 0) {
+                return text;
+            }
+            return text.replace("\r\n", "\n").replace('\r', '\n');
+        }
+    }
+}
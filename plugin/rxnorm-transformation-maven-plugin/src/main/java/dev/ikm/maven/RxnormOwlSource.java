@@ -0,0 +1,106 @@
+package dev.ikm.maven;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The RxNorm OWL input of a transformation: either the OWL file itself, or a release zip whose OWL
+ * entry is streamed straight into the parser without being unpacked to disk.
+ */
+public class RxnormOwlSource {
+    private final File file;
+    private final String owlEntryName;
+
+    private RxnormOwlSource(File file, String owlEntryName) {
+        this.file = file;
+        this.owlEntryName = owlEntryName;
+    }
+
+    /**
+     * @param file an OWL file, or a zip containing one
+     * @return the source for the file
+     * @throws IOException if the file is a zip without an OWL entry, or cannot be read
+     */
+    public static RxnormOwlSource of(File file) throws IOException {
+        if (!file.getName().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            return new RxnormOwlSource(file, null);
+        }
+        try (ZipFile zipFile = new ZipFile(file)) {
+            return new RxnormOwlSource(file, findOwlEntry(zipFile).getName());
+        }
+    }
+
+    private static ZipEntry findOwlEntry(ZipFile zipFile) throws IOException {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".owl")) {
+                return entry;
+            }
+        }
+        throw new IOException("No .owl entry found in " + zipFile.getName());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isZipped() {
+        return owlEntryName != null;
+    }
+
+    /**
+     * @return name of the OWL file, without any directory, used to derive the release time
+     */
+    public String getOwlFileName() {
+        if (owlEntryName == null) {
+            return file.getName();
+        }
+        return owlEntryName.substring(owlEntryName.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Opens the OWL content for reading. Closing the reader also closes the zip, if any.
+     */
+    public Reader openReader() throws IOException {
+        if (owlEntryName == null) {
+            return new FileReader(file);
+        }
+        ZipFile zipFile = new ZipFile(file);
+        try {
+            ZipEntry entry = zipFile.getEntry(owlEntryName);
+            if (entry == null) {
+                throw new IOException("Entry " + owlEntryName + " no longer found in " + file);
+            }
+            InputStream entryStream = new FilterInputStream(zipFile.getInputStream(entry)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        zipFile.close();
+                    }
+                }
+            };
+            return new InputStreamReader(entryStream, StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return owlEntryName == null ? file.toString() : file + "!/" + owlEntryName;
+    }
+}
@@ -0,0 +1,121 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Composes RxNorm concepts on several worker threads.
+ * <p>
+ * The parsed concepts are handed to the workers through a bounded queue, so parsing never runs far
+ * ahead of composition. Each worker composes through its own {@link RxnormSessionPool} over its own
+ * {@link Composer}, commits at the pool's commit interval, and commits the rest once the queue is
+ * drained. Every concept is composed by exactly one worker with the same UUIDs as on a single
+ * thread, so the resulting entities are the same as composing serially.
+ */
+public class RxnormParallelComposer {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormParallelComposer.class.getSimpleName());
+    private static final int QUEUE_CAPACITY_PER_WORKER = 256;
+    private static final RxnormData END_OF_CONCEPTS = new RxnormData("");
+
+    private RxnormParallelComposer() {
+    }
+
+    /**
+     * @param concepts parsed concepts, read on the calling thread
+     * @param workers number of worker threads, each with its own composer
+     * @param newWorkerSessions creates the session pool, over a new Composer, of the given worker number
+     * @param composeConcept composes one concept with the worker's session pool, called on a worker thread
+     * @return number of concepts handed to the workers
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @throws ExecutionException if a worker failed to compose or commit
+     */
+    public static int compose(Iterator<RxnormData> concepts, int workers, IntFunction<RxnormSessionPool> newWorkerSessions,
+                              BiConsumer<RxnormData, RxnormSessionPool> composeConcept) throws InterruptedException, ExecutionException {
+        BlockingQueue<RxnormData> queue = new ArrayBlockingQueue<>(workers * QUEUE_CAPACITY_PER_WORKER);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers,
+                runnable -> new Thread(runnable, "rxnorm-compose-" + threadNumber.incrementAndGet()));
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int worker = 1; worker <= workers; worker++) {
+                RxnormSessionPool sessions = newWorkerSessions.apply(worker);
+                results.add(executor.submit(() -> composeUntilEnd(queue, sessions, composeConcept)));
+            }
+
+            int conceptCount = 0;
+            try {
+                while (concepts.hasNext()) {
+                    put(queue, concepts.next(), results);
+                    conceptCount++;
+                }
+            } finally {
+                for (int worker = 0; worker < workers; worker++) {
+                    put(queue, END_OF_CONCEPTS, results);
+                }
+            }
+
+            for (int worker = 0; worker < workers; worker++) {
+                LOG.info("Compose worker {} composed {} concepts", worker + 1, results.get(worker).get());
+            }
+            return conceptCount;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for room in the queue, failing if a worker has stopped so a dead worker cannot block the parser forever
+     */
+    private static void put(BlockingQueue<RxnormData> queue, RxnormData concept, List<Future<Integer>> results)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(concept, 1, TimeUnit.SECONDS)) {
+            for (Future<Integer> result : results) {
+                if (result.isDone()) {
+                    result.get();
+                    throw new IllegalStateException("Compose worker stopped before the end of the concepts");
+                }
+            }
+        }
+    }
+
+    /**
+     * Composes concepts until the end of the concepts, then commits the pending sessions. They are committed even
+     * if composing fails, and a failure to commit them is kept with the failure that stopped the worker.
+     */
+    private static int composeUntilEnd(BlockingQueue<RxnormData> queue, RxnormSessionPool sessions,
+                                       BiConsumer<RxnormData, RxnormSessionPool> composeConcept) throws InterruptedException {
+        int composed = 0;
+        try {
+            RxnormData concept;
+            while ((concept = queue.take()) != END_OF_CONCEPTS) {
+                composeConcept.accept(concept, sessions);
+                sessions.conceptComposed();
+                composed++;
+            }
+        } catch (Throwable e) {
+            try {
+                sessions.commit();
+            } catch (Throwable commitFailure) {
+                e.addSuppressed(commitFailure);
+            }
+            throw e;
+        }
+        sessions.commit();
+        return composed;
+    }
+}
@@ -0,0 +1,146 @@
+package dev.ikm.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses an RxNorm OWL file on a {@link ForkJoinPool}.
+ * <p>
+ * The memory-mapped file is cut into byte ranges and each range parses the class blocks whose
+ * "# Class: " marker starts inside it, so every chunk begins and ends on a class boundary no
+ * matter where the range was cut. The chunks are parsed ahead of the reader, at most
+ * {@link #CHUNKS_IN_FLIGHT_PER_THREAD} per thread at a time, and their concepts are passed on chunk
+ * after chunk as each one is done, so the concepts come out in file order and only the chunks in flight
+ * are held in memory, however large the file.
+ */
+public class RxnormParallelOwlParser {
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 4L << 20;
+    private static final int CHUNKS_PER_THREAD = 8;
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private RxnormParallelOwlParser() {
+    }
+
+    /**
+     * Streams the concepts of the file as the chunks are parsed. The returned stream holds the mapping and
+     * the worker threads and must be closed.
+     *
+     * @param file RxNorm OWL file
+     * @param parallelism number of worker threads, or 0 or less to use every available processor
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if the file cannot be mapped
+     */
+    public static Stream<RxnormData> stream(File file, int parallelism) throws IOException {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        RxnormMappedOwlFile mappedFile = new RxnormMappedOwlFile(file);
+        long chunkBytes = Math.clamp(mappedFile.size() / ((long) threads * CHUNKS_PER_THREAD), MIN_CHUNK_BYTES, MAX_CHUNK_BYTES);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ChunkIterator concepts = new ChunkIterator(mappedFile, pool, chunkBytes, threads * CHUNKS_IN_FLIGHT_PER_THREAD);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(concepts, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    // Chunks still being parsed read the mapping, so it is only released once they are done
+                    pool.shutdownNow();
+                    try {
+                        pool.awaitTermination(1, TimeUnit.MINUTES);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    try {
+                        mappedFile.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * @param file RxNorm OWL file
+     * @param parallelism number of worker threads, or 0 or less to use every available processor
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if the file cannot be mapped
+     */
+    public static List<RxnormData> parse(File file, int parallelism) throws IOException {
+        try (Stream<RxnormData> concepts = stream(file, parallelism)) {
+            return concepts.toList();
+        }
+    }
+
+    /**
+     * Passes on the concepts of one chunk after the other, submitting the next chunk to the pool each time
+     * the oldest chunk in flight is taken
+     */
+    private static final class ChunkIterator implements Iterator<RxnormData> {
+        private final RxnormMappedOwlFile mappedFile;
+        private final ForkJoinPool pool;
+        private final long chunkBytes;
+        private final ArrayDeque<ForkJoinTask<List<RxnormData>>> chunksInFlight = new ArrayDeque<>();
+        private long nextChunkFrom;
+        private Iterator<RxnormData> chunk = Collections.emptyIterator();
+
+        private ChunkIterator(RxnormMappedOwlFile mappedFile, ForkJoinPool pool, long chunkBytes, int maxChunksInFlight) {
+            this.mappedFile = mappedFile;
+            this.pool = pool;
+            this.chunkBytes = chunkBytes;
+            for (int i = 0; i < maxChunksInFlight; i++) {
+                submitNextChunk();
+            }
+        }
+
+        private void submitNextChunk() {
+            if (nextChunkFrom < mappedFile.size()) {
+                long from = nextChunkFrom;
+                long to = Math.min(mappedFile.size(), from + chunkBytes);
+                chunksInFlight.add(pool.submit(() -> parseChunk(mappedFile, from, to)));
+                nextChunkFrom = to;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!chunk.hasNext()) {
+                ForkJoinTask<List<RxnormData>> next = chunksInFlight.poll();
+                if (next == null) {
+                    return false;
+                }
+                chunk = next.join().iterator();
+                submitNextChunk();
+            }
+            return true;
+        }
+
+        @Override
+        public RxnormData next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.next();
+        }
+    }
+
+    private static List<RxnormData> parseChunk(RxnormMappedOwlFile mappedFile, long from, long to) {
+        List<RxnormData> concepts = new ArrayList<>();
+        Iterator<CharSequence> blocks = mappedFile.blocks(from, to);
+        while (blocks.hasNext()) {
+            RxnormData concept = RxnormUtility.parseClassBlock(blocks.next());
+            if (concept != null) {
+                concepts.add(concept);
+            }
+        }
+        return concepts;
+    }
+}
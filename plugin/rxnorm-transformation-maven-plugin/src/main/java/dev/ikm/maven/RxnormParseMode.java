@@ -0,0 +1,20 @@
+package dev.ikm.maven;
+
+/**
+ * How the RxNorm OWL file is read and split into class blocks
+ */
+public enum RxnormParseMode {
+    /**
+     * Read the file line by line, holding one class block at a time
+     */
+    STREAMING,
+    /**
+     * Map the file into memory and scan the class blocks in place
+     */
+    MEMORY_MAPPED,
+    /**
+     * Map the file into memory and parse chunks of class blocks ahead on a fork-join pool, keeping file order
+     * and holding only the chunks in flight
+     */
+    PARALLEL
+}
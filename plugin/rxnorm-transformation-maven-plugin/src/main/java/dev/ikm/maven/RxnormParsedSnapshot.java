@@ -0,0 +1,421 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Binary snapshot of the RxnormData parsed from an OWL source.
+ * <p>
+ * The first parse of a source writes the snapshot next to it. The snapshot header holds the SHA-256
+ * of the source file, and later reads load the snapshot through a memory mapping instead of parsing
+ * the OWL again, as long as the hash still matches. A changed source is parsed again and its snapshot
+ * rewritten. The snapshot is written to a temporary file and only moved into place once the parse has
+ * run to the end, so an interrupted parse never leaves a partial snapshot behind.
+ * <p>
+ * The header also holds the version of the layout and of the parser output. A snapshot written by another
+ * version is treated like one of a different source: it is not read, and is replaced by a new parse.
+ * <p>
+ * Layout, big-endian as written by {@link DataOutputStream}: magic, format version, parser version,
+ * 32 byte source hash, then
+ * a record per concept introduced by a 1 byte, and a 0 byte followed by the concept count at the end.
+ * Strings are an int byte length, -1 for null, followed by their UTF-8 bytes.
+ */
+public class RxnormParsedSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormParsedSnapshot.class.getSimpleName());
+
+    public static final String SNAPSHOT_SUFFIX = ".parsed-snapshot";
+
+    private static final int MAGIC = 0x52584E53; // "RXNS"
+    private static final int FORMAT_VERSION = 2;
+    /**
+     * Version of the parsed content. Bump it whenever {@link RxnormData} or the parsing in {@link RxnormUtility}
+     * changes, so the snapshots of earlier parses are parsed again.
+     */
+    public static final int PARSER_VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int HASH_OFFSET = Integer.BYTES * 3;
+    private static final int HEADER_LENGTH = HASH_OFFSET + HASH_LENGTH;
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+    private static final ValueLayout.OfInt INT_LAYOUT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private RxnormParsedSnapshot() {
+    }
+
+    /**
+     * @return the snapshot file kept next to the source
+     */
+    public static File snapshotFileFor(RxnormOwlSource source) {
+        return new File(source.getFile().getPath() + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Streams RxNorm attributes from the snapshot next to the source, or parses the source and writes
+     * the snapshot if it is missing or was taken from different content. The returned stream must be closed.
+     *
+     * @param source RxNorm OWL source
+     * @param parseMode how the source is parsed when there is no current snapshot
+     * @param parallelism worker threads for {@link RxnormParseMode#PARALLEL}, 0 for every available processor
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if neither the snapshot nor the source can be read
+     */
+    public static Stream<RxnormData> streamRxnormData(RxnormOwlSource source, RxnormParseMode parseMode, int parallelism) throws IOException {
+        return streamRxnormData(source, snapshotFileFor(source), hash(source.getFile()), parseMode, parallelism);
+    }
+
+    /**
+     * Streams RxNorm attributes from the snapshot next to the source, as {@link #streamRxnormData(RxnormOwlSource, RxnormParseMode, int)}
+     * does, with the hash of the source already computed by the caller
+     *
+     * @param sourceHash {@link #hash(File) hash} of the source file
+     */
+    public static Stream<RxnormData> streamRxnormData(RxnormOwlSource source, byte[] sourceHash, RxnormParseMode parseMode, int parallelism) throws IOException {
+        return streamRxnormData(source, snapshotFileFor(source), sourceHash, parseMode, parallelism);
+    }
+
+    /**
+     * Streams RxNorm attributes from the given snapshot, or parses the source and writes the snapshot
+     * if it is missing or was taken from different content. The returned stream must be closed.
+     *
+     * @param source RxNorm OWL source
+     * @param snapshotFile snapshot to read or write
+     * @param parseMode how the source is parsed when there is no current snapshot
+     * @param parallelism worker threads for {@link RxnormParseMode#PARALLEL}, 0 for every available processor
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if neither the snapshot nor the source can be read
+     */
+    public static Stream<RxnormData> streamRxnormData(RxnormOwlSource source, File snapshotFile, RxnormParseMode parseMode, int parallelism) throws IOException {
+        return streamRxnormData(source, snapshotFile, hash(source.getFile()), parseMode, parallelism);
+    }
+
+    private static Stream<RxnormData> streamRxnormData(RxnormOwlSource source, File snapshotFile, byte[] sourceHash, RxnormParseMode parseMode, int parallelism) throws IOException {
+        if (isCurrent(snapshotFile, sourceHash)) {
+            LOG.info("Loading parsed snapshot {}", snapshotFile);
+            return read(snapshotFile);
+        }
+
+        LOG.info("No current parsed snapshot for {}, parsing and writing {}", source, snapshotFile);
+        Stream<RxnormData> parsed = RxnormUtility.streamRxnormData(source, parseMode, parallelism);
+        SnapshotWriter writer;
+        try {
+            writer = new SnapshotWriter(snapshotFile, sourceHash);
+        } catch (IOException e) {
+            LOG.warn("Cannot write parsed snapshot " + snapshotFile + ", parsing without it", e);
+            return parsed;
+        }
+        Iterator<RxnormData> concepts = parsed.iterator();
+        Iterator<RxnormData> writingConcepts = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = concepts.hasNext();
+                if (!hasNext) {
+                    writer.complete();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public RxnormData next() {
+                RxnormData concept = concepts.next();
+                writer.write(concept);
+                return concept;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(writingConcepts,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        parsed.close();
+                    } finally {
+                        writer.close();
+                    }
+                });
+    }
+
+    /**
+     * @return SHA-256 of the file content
+     */
+    public static byte[] hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[1 << 20];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return true if the snapshot exists, was written by the current format and parser versions and was taken
+     * from content with the given hash
+     */
+    public static boolean isCurrent(File snapshotFile, byte[] sourceHash) throws IOException {
+        if (!snapshotFile.isFile() || snapshotFile.length() < HEADER_LENGTH) {
+            return false;
+        }
+        byte[] header = new byte[HEADER_LENGTH];
+        try (InputStream in = new FileInputStream(snapshotFile)) {
+            if (in.readNBytes(header, 0, HEADER_LENGTH) != HEADER_LENGTH) {
+                return false;
+            }
+        }
+        return isCurrentVersion(MemorySegment.ofArray(header))
+                && Arrays.equals(header, HASH_OFFSET, HEADER_LENGTH, sourceHash, 0, sourceHash.length);
+    }
+
+    private static boolean isCurrentVersion(MemorySegment header) {
+        return header.byteSize() >= HEADER_LENGTH
+                && header.get(INT_LAYOUT, 0) == MAGIC
+                && header.get(INT_LAYOUT, Integer.BYTES) == FORMAT_VERSION
+                && header.get(INT_LAYOUT, Integer.BYTES * 2) == PARSER_VERSION;
+    }
+
+    /**
+     * Reads the concept count from the end of a snapshot, without reading the concepts
+     *
+     * @return number of concepts in the snapshot, or -1 if the file is not a complete snapshot
+     */
+    public static int conceptCount(File snapshotFile) throws IOException {
+        if (!snapshotFile.isFile() || snapshotFile.length() < HEADER_LENGTH + 1 + Integer.BYTES) {
+            return -1;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "r")) {
+            if (file.readInt() != MAGIC || file.readInt() != FORMAT_VERSION || file.readInt() != PARSER_VERSION) {
+                return -1;
+            }
+            file.seek(file.length() - 1 - Integer.BYTES);
+            return file.readByte() == END ? file.readInt() : -1;
+        }
+    }
+
+    /**
+     * Streams the concepts of a snapshot through a memory mapping. The returned stream holds the
+     * mapping and must be closed.
+     *
+     * @param snapshotFile snapshot written by this class
+     * @return RxnormData for each concept in the snapshot, in file order
+     * @throws IOException if the snapshot cannot be mapped or was written by another format or parser version
+     */
+    public static Stream<RxnormData> read(File snapshotFile) throws IOException {
+        FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ);
+        Arena arena = Arena.ofShared();
+        MemorySegment segment;
+        try {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (!isCurrentVersion(segment)) {
+                throw new IOException(snapshotFile + " is not a parsed snapshot of format version " + FORMAT_VERSION
+                        + " and parser version " + PARSER_VERSION + ", parse its source again");
+            }
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            channel.close();
+            throw e;
+        }
+        SnapshotReader reader = new SnapshotReader(segment);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        arena.close();
+                        channel.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static class SnapshotWriter {
+        private final File snapshotFile;
+        private final File tempFile;
+        private final DataOutputStream out;
+        private int count;
+        private boolean complete;
+        private boolean failed;
+
+        SnapshotWriter(File snapshotFile, byte[] sourceHash) throws IOException {
+            this.snapshotFile = snapshotFile;
+            this.tempFile = new File(snapshotFile.getPath() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(PARSER_VERSION);
+            out.write(sourceHash);
+        }
+
+        void write(RxnormData concept) {
+            if (failed) {
+                return;
+            }
+            try {
+                out.writeByte(RECORD);
+                writeString(concept.getUri());
+                writeString(concept.getRxnormName());
+                writeString(concept.getRxnormSynonym());
+                writeString(concept.getPrescribableSynonym());
+                writeString(concept.getSnomedCtId());
+                writeString(concept.getRxCuiId());
+                writeString(concept.getVuidId());
+                writeString(concept.getQualitativeDistinction());
+                writeString(concept.getQuantity());
+                writeString(concept.getSchedule());
+                writeString(concept.getHumanDrug());
+                writeString(concept.getVetDrug());
+                writeString(concept.getEquivalentClassesStr());
+
+                // Each NDC code is written with its end date, so replaying them in order rebuilds the concept's NDC codes
+                List<String> ndcCodes = concept.getNdcCodes();
+                out.writeInt(ndcCodes.size());
+                for (int i = 0; i < ndcCodes.size(); i++) {
+                    writeString(ndcCodes.get(i));
+                    writeString(concept.getNdcEndDate(i));
+                }
+
+                List<String> tallmanSynonyms = concept.getTallmanSynonyms();
+                out.writeInt(tallmanSynonyms.size());
+                for (String tallmanSynonym : tallmanSynonyms) {
+                    writeString(tallmanSynonym);
+                }
+                count++;
+            } catch (IOException e) {
+                failed = true;
+                LOG.warn("Cannot write parsed snapshot " + tempFile, e);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void complete() {
+            complete = true;
+        }
+
+        void close() {
+            try {
+                if (!failed) {
+                    out.writeByte(END);
+                    out.writeInt(count);
+                }
+                out.close();
+                if (complete && !failed) {
+                    Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    LOG.info("Wrote parsed snapshot of {} concepts to {}", count, snapshotFile);
+                    return;
+                }
+            } catch (IOException e) {
+                LOG.warn("Cannot write parsed snapshot " + snapshotFile, e);
+            }
+            tempFile.delete();
+        }
+    }
+
+    private static class SnapshotReader implements Iterator<RxnormData> {
+        private final MemorySegment segment;
+        private long position = HEADER_LENGTH;
+
+        SnapshotReader(MemorySegment segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return segment.get(ValueLayout.JAVA_BYTE, position) == RECORD;
+        }
+
+        @Override
+        public RxnormData next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            position++;
+            RxnormData concept = new RxnormData(readString());
+            concept.setRxnormName(readString());
+            concept.setRxnormSynonym(readString());
+            concept.setPrescribableSynonym(readString());
+            concept.setSnomedCtId(readString());
+            concept.setRxCuiId(readString());
+            concept.setVuidId(readString());
+            concept.setQualitativeDistinction(readString());
+            concept.setQuantity(readString());
+            concept.setSchedule(readString());
+            concept.setHumanDrug(readString());
+            concept.setVetDrug(readString());
+            concept.setEquivalentClassesStr(readString());
+
+            int ndcCount = readInt();
+            for (int i = 0; i < ndcCount; i++) {
+                String ndcCode = readString();
+                String endDate = readString();
+                if (endDate == null) {
+                    concept.addNdcCode(ndcCode);
+                } else {
+                    concept.addNdcCodeWithEndDate(ndcCode, endDate);
+                }
+            }
+
+            int tallmanCount = readInt();
+            for (int i = 0; i < tallmanCount; i++) {
+                concept.addTallmanSynonym(readString());
+            }
+            return concept;
+        }
+
+        private int readInt() {
+            int value = segment.get(INT_LAYOUT, position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        private String readString() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(segment.asSlice(position, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Logs the progress of a transformation run from a background thread.
+ * <p>
+ * Every interval the reporter samples the number of concepts composed, and logs it with the rate over
+ * a sliding window of recent samples, the heap in use and, when the number of concepts to compose is
+ * known, the estimated time to completion. The compose loop only updates the counter it already keeps,
+ * so reporting adds nothing to the hot path.
+ */
+public class RxnormProgressReporter implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormProgressReporter.class.getSimpleName());
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private final LongSupplier composed;
+    private final long total;
+    private final long windowNanos;
+    private final long start = System.nanoTime();
+    private final ArrayDeque<long[]> samples = new ArrayDeque<>(); // {nanoTime, composed}, only used on the reporter thread
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param composed number of concepts composed so far, read on the reporter thread
+     * @param total number of concepts to compose, or a negative number if unknown
+     * @param intervalSeconds seconds between reports
+     * @param windowSeconds seconds of recent samples the rate is computed over
+     */
+    public RxnormProgressReporter(LongSupplier composed, long total, int intervalSeconds, int windowSeconds) {
+        this.composed = composed;
+        this.total = total;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(Math.max(windowSeconds, intervalSeconds));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rxnorm-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        samples.add(new long[]{start, composed.getAsLong()});
+        scheduler.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void report() {
+        long now = System.nanoTime();
+        long count = composed.getAsLong();
+        samples.addLast(new long[]{now, count});
+        while (samples.size() > 2 && now - samples.getFirst()[0] > windowNanos) {
+            samples.removeFirst();
+        }
+        long[] oldest = samples.getFirst();
+        double rate = (count - oldest[1]) / Math.max(1e-9, (now - oldest[0]) / 1e9);
+
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = (runtime.totalMemory() - runtime.freeMemory()) / MEGABYTE;
+        long heapMax = runtime.maxMemory() / MEGABYTE;
+
+        StringBuilder progress = new StringBuilder("Progress after ").append(format(Duration.ofNanos(now - start)))
+                .append(": ").append(count);
+        if (total >= 0) {
+            progress.append('/').append(total).append(String.format(" concepts (%.1f%%)", total == 0 ? 100.0 : 100.0 * count / total));
+        } else {
+            progress.append(" concepts");
+        }
+        progress.append(String.format(", %.0f concepts/s", rate))
+                .append(", heap ").append(heapUsed).append('/').append(heapMax).append(" MB");
+        if (total >= 0 && rate > 0) {
+            progress.append(", ETA ").append(format(Duration.ofSeconds((long) (Math.max(0, total - count) / rate))));
+        }
+        LOG.info(progress.toString());
+    }
+
+    private static String format(Duration duration) {
+        return String.format("%d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+
+    /**
+     * Stops reporting
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
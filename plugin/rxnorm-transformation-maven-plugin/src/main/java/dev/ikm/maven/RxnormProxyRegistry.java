@@ -0,0 +1,47 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.service.CachingService;
+import dev.ikm.tinkar.terms.EntityProxy;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proxies of the fixed RxNorm concepts and patterns, made once per public id and shared.
+ * <p>
+ * A proxy resolves its nid from the datastore the first time it is asked for it and keeps it, so sharing the
+ * proxies saves both the UUID parsing and the nid lookup of a fresh proxy on every call. Nids belong to a
+ * datastore, so the registry is cleared by {@link CachingService#clearAll()}, which is called before a
+ * datastore is started.
+ */
+public class RxnormProxyRegistry implements CachingService {
+    private static final Map<String, EntityProxy.Concept> CONCEPTS = new ConcurrentHashMap<>();
+    private static final Map<String, EntityProxy.Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    /**
+     * @param publicId UUID of the concept
+     * @return the shared proxy of the concept
+     */
+    public static EntityProxy.Concept concept(String publicId) {
+        return CONCEPTS.computeIfAbsent(publicId, uuid -> EntityProxy.Concept.make(PublicIds.of(UUID.fromString(uuid))));
+    }
+
+    /**
+     * @param publicId UUID of the pattern
+     * @return the shared proxy of the pattern
+     */
+    public static EntityProxy.Pattern pattern(String publicId) {
+        return PATTERNS.computeIfAbsent(publicId, uuid -> EntityProxy.Pattern.make(PublicIds.of(UUID.fromString(uuid))));
+    }
+
+    /**
+     * Forgets the proxies and the nids they resolved
+     */
+    @Override
+    public void reset() {
+        CONCEPTS.clear();
+        PATTERNS.clear();
+    }
+}
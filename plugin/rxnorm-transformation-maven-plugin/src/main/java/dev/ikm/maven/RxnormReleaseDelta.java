@@ -0,0 +1,314 @@
+package dev.ikm.maven;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Difference between the previous RxNorm release and the one being transformed.
+ * <p>
+ * The previous release is held as {@link RxnormConceptColumns} with a 128 bit content hash over all
+ * RxnormData fields of each concept. {@link #changes(Iterator)} passes on only the concepts of the new
+ * release that were added or whose hash changed, followed by the concepts of the previous release that
+ * are no longer in the new one, in the order of the previous release and marked
+ * {@link RxnormData#isRetired() retired}. The order is the same on every run over the same releases, so
+ * a resumed transformation can skip the concepts committed before its checkpoint by position. For a
+ * changed concept, {@link #retiredValues(RxnormData)} gives the previous values it no longer has, such as
+ * a renamed description or a dropped NDC code, so that their semantics can be inactivated as well.
+ * <p>
+ * {@link #changes(Iterator)} must be iterated on one thread; {@link #retiredValues(RxnormData)} only reads
+ * the previous release and may be called from any thread.
+ */
+public class RxnormReleaseDelta {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormReleaseDelta.class.getSimpleName());
+    private static final byte[] NULL_VALUE = {(byte) 0xFF};
+
+    private final RxnormConceptColumns previous;
+    private final Map<String, Integer> previousRows;
+    private final long[] previousHashes;
+    private final MessageDigest digest = newSha256();
+
+    private int added;
+    private int changed;
+    private int unchanged;
+    private int retired;
+
+    private RxnormReleaseDelta(RxnormConceptColumns previous, Map<String, Integer> previousRows, long[] previousHashes) {
+        this.previous = previous;
+        this.previousRows = previousRows;
+        this.previousHashes = previousHashes;
+    }
+
+    /**
+     * @param previousRelease parsed concepts of the previous release
+     * @return the delta against that release, to filter the concepts of the new release with
+     */
+    public static RxnormReleaseDelta of(Iterator<RxnormData> previousRelease) {
+        MessageDigest digest = newSha256();
+        // Kept in the order of the previous release, the order the retired concepts are passed on in
+        Map<String, Integer> rows = new LinkedHashMap<>();
+        long[][] hashes = {new long[1 << 12]};
+        int[] rowCount = {0};
+        Iterator<RxnormData> hashing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return previousRelease.hasNext();
+            }
+
+            @Override
+            public RxnormData next() {
+                RxnormData concept = previousRelease.next();
+                int row = rowCount[0]++;
+                if (2 * row + 1 >= hashes[0].length) {
+                    hashes[0] = Arrays.copyOf(hashes[0], hashes[0].length * 2);
+                }
+                contentHash(digest, concept, hashes[0], 2 * row);
+                if (concept.getId() != null) {
+                    rows.put(concept.getId(), row);
+                }
+                return concept;
+            }
+        };
+        RxnormConceptColumns columns = RxnormConceptColumns.of(hashing);
+        LOG.info("Previous release has " + columns.size() + " concepts");
+        return new RxnormReleaseDelta(columns, rows, hashes[0]);
+    }
+
+    /**
+     * @param release parsed concepts of the new release
+     * @return the added and changed concepts of the new release, in release order, then the retired
+     * concepts of the previous release, in previous release order
+     */
+    public Iterator<RxnormData> changes(Iterator<RxnormData> release) {
+        BitSet seenRows = new BitSet(previous.size());
+        long[] hash = new long[2];
+        return new Iterator<>() {
+            private RxnormData next;
+            private Iterator<Integer> retiredRows;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (retiredRows == null) {
+                        if (release.hasNext()) {
+                            next = classify(release.next());
+                            continue;
+                        }
+                        retiredRows = previousRows.values().iterator();
+                    }
+                    if (!retiredRows.hasNext()) {
+                        return false;
+                    }
+                    int row = retiredRows.next();
+                    if (!seenRows.get(row)) {
+                        next = previous.rxnormData(row);
+                        next.setRetired(true);
+                        retired++;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public RxnormData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                RxnormData concept = next;
+                next = null;
+                return concept;
+            }
+
+            /**
+             * @return the concept if it has to be composed, null if it is unchanged
+             */
+            private RxnormData classify(RxnormData concept) {
+                Integer row = concept.getId() == null ? null : previousRows.get(concept.getId());
+                if (row == null) {
+                    added++;
+                    return concept;
+                }
+                seenRows.set(row);
+                contentHash(digest, concept, hash, 0);
+                if (hash[0] == previousHashes[2 * row] && hash[1] == previousHashes[2 * row + 1]) {
+                    unchanged++;
+                    return null;
+                }
+                changed++;
+                return concept;
+            }
+        };
+    }
+
+    /**
+     * @param concept concept of the new release
+     * @return the values of the concept in the previous release that the new release no longer has, or
+     * null if it has none or the concept is new
+     */
+    public RxnormData retiredValues(RxnormData concept) {
+        Integer row = concept.getId() == null ? null : previousRows.get(concept.getId());
+        if (row == null) {
+            return null;
+        }
+        RxnormData previousConcept = previous.rxnormData(row);
+        RxnormData retiredValues = new RxnormData(concept.getUri());
+        boolean any = false;
+        if (isRetired(previousConcept.getRxnormName(), concept.getRxnormName())) {
+            retiredValues.setRxnormName(previousConcept.getRxnormName());
+            any = true;
+        }
+        if (isRetired(previousConcept.getRxnormSynonym(), concept.getRxnormSynonym())) {
+            retiredValues.setRxnormSynonym(previousConcept.getRxnormSynonym());
+            any = true;
+        }
+        if (isRetired(previousConcept.getPrescribableSynonym(), concept.getPrescribableSynonym())) {
+            retiredValues.setPrescribableSynonym(previousConcept.getPrescribableSynonym());
+            any = true;
+        }
+        if (isRetired(previousConcept.getSnomedCtId(), concept.getSnomedCtId())) {
+            retiredValues.setSnomedCtId(previousConcept.getSnomedCtId());
+            any = true;
+        }
+        if (isRetired(previousConcept.getRxCuiId(), concept.getRxCuiId())) {
+            retiredValues.setRxCuiId(previousConcept.getRxCuiId());
+            any = true;
+        }
+        if (isRetired(previousConcept.getVuidId(), concept.getVuidId())) {
+            retiredValues.setVuidId(previousConcept.getVuidId());
+            any = true;
+        }
+        if (isRetired(previousConcept.getQualitativeDistinction(), concept.getQualitativeDistinction())) {
+            retiredValues.setQualitativeDistinction(previousConcept.getQualitativeDistinction());
+            any = true;
+        }
+        if (isRetired(previousConcept.getQuantity(), concept.getQuantity())) {
+            retiredValues.setQuantity(previousConcept.getQuantity());
+            any = true;
+        }
+        if (isRetired(previousConcept.getSchedule(), concept.getSchedule())) {
+            retiredValues.setSchedule(previousConcept.getSchedule());
+            any = true;
+        }
+        if (isRetired(previousConcept.getHumanDrug(), concept.getHumanDrug())) {
+            retiredValues.setHumanDrug(previousConcept.getHumanDrug());
+            any = true;
+        }
+        if (isRetired(previousConcept.getVetDrug(), concept.getVetDrug())) {
+            retiredValues.setVetDrug(previousConcept.getVetDrug());
+            any = true;
+        }
+        if (isRetired(previousConcept.getEquivalentClassesStr(), concept.getEquivalentClassesStr())) {
+            retiredValues.setEquivalentClassesStr(previousConcept.getEquivalentClassesStr());
+            any = true;
+        }
+
+        Set<String> ndcCodes = new HashSet<>();
+        concept.forEachNdcCode((ndcCode, endDate) -> ndcCodes.add(ndcCode));
+        previousConcept.forEachNdcCode((ndcCode, endDate) -> {
+            if (!ndcCodes.contains(ndcCode)) {
+                retiredValues.addNdcCodeWithEndDate(ndcCode, endDate);
+            }
+        });
+        any |= retiredValues.ndcCodeCount() > 0;
+
+        List<String> tallmanSynonyms = concept.getTallmanSynonyms();
+        for (String synonym : previousConcept.getTallmanSynonyms()) {
+            if (!tallmanSynonyms.contains(synonym)) {
+                retiredValues.addTallmanSynonym(synonym);
+                any = true;
+            }
+        }
+        return any ? retiredValues : null;
+    }
+
+    private static boolean isRetired(String previousValue, String value) {
+        return previousValue != null && !previousValue.isEmpty() && !previousValue.equals(value);
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public int getRetired() {
+        return retired;
+    }
+
+    /**
+     * Hashes every field of the concept into two longs of the given array, starting at offset
+     */
+    private static void contentHash(MessageDigest digest, RxnormData concept, long[] hash, int offset) {
+        for (RxnormConceptColumns.Attribute attribute : RxnormConceptColumns.Attribute.values()) {
+            update(digest, attribute.get(concept));
+        }
+        int ndcCount = concept.ndcCodeCount();
+        updateLength(digest, ndcCount);
+        List<String> ndcCodes = concept.getNdcCodes();
+        for (int i = 0; i < ndcCount; i++) {
+            update(digest, ndcCodes.get(i));
+            update(digest, concept.getNdcEndDate(i));
+        }
+        List<String> tallmanSynonyms = concept.getTallmanSynonyms();
+        updateLength(digest, tallmanSynonyms.size());
+        for (String synonym : tallmanSynonyms) {
+            update(digest, synonym);
+        }
+
+        byte[] bytes = digest.digest();
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (bytes[i] & 0xff);
+            low = (low << 8) | (bytes[i + 8] & 0xff);
+        }
+        hash[offset] = high;
+        hash[offset + 1] = low;
+    }
+
+    /**
+     * Hashes a value with its length, so that consecutive values cannot run into each other
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(NULL_VALUE);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateLength(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateLength(MessageDigest digest, int length) {
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.composer.Composer;
+import dev.ikm.tinkar.composer.Session;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Hands out Composer sessions for the concepts of one transformation run.
+ * <p>
+ * Every session of a run shares the time, author, module and path, so sessions only differ by state.
+ * With a batch size above 1, the concepts and NDC codes composed with the same state share a pooled
+ * session until it has been handed out batchSize times, and only then is a new session opened. This
+ * keeps the number of pending sessions, and of stamps to resolve at commit, far below one per concept.
+ * A batch size of 1 or less opens a new session every time, as the transformation always did.
+ * <p>
+ * With a commit interval, the pending sessions are committed every given number of concepts or of
+ * opened sessions, and later sessions are opened on a new Composer, so the sessions of committed
+ * concepts can be released instead of being held until the end of the run.
+ * <p>
+ * Not thread safe, each compose worker uses its own pool and Composer.
+ */
+public class RxnormSessionPool {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormSessionPool.class.getSimpleName());
+
+    private final Supplier<Composer> composerFactory;
+    private final long time;
+    private final EntityProxy.Concept author;
+    private final EntityProxy.Concept module;
+    private final EntityProxy.Concept path;
+    private final int batchSize;
+
+    private final Session[] pooledSessions = new Session[State.values().length];
+    private final int[] pooledUses = new int[State.values().length];
+    private Composer composer;
+    private int sessionsOpened;
+
+    private ObjIntConsumer<Composer> committer = (composer, concepts) -> composer.commitAllSessions();
+    private int conceptCommitInterval;
+    private int sessionCommitInterval;
+    private int pendingConcepts;
+    private int pendingSessions;
+    private int commits;
+
+    /**
+     * @param composerFactory creates the Composer the sessions are opened on, again after each commit
+     */
+    public RxnormSessionPool(Supplier<Composer> composerFactory, long time, EntityProxy.Concept author, EntityProxy.Concept module,
+                             EntityProxy.Concept path, int batchSize) {
+        this.composerFactory = composerFactory;
+        this.time = time;
+        this.author = author;
+        this.module = module;
+        this.path = path;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Commits the pending sessions every conceptCommitInterval concepts, or as soon as sessionCommitInterval
+     * sessions are pending. 0 or less disables an interval, and with both disabled everything is committed
+     * by the final {@link #commit()}.
+     */
+    public RxnormSessionPool withCommitInterval(int conceptCommitInterval, int sessionCommitInterval) {
+        this.conceptCommitInterval = conceptCommitInterval;
+        this.sessionCommitInterval = sessionCommitInterval;
+        return this;
+    }
+
+    /**
+     * Hands each Composer to be committed, with the number of concepts composed into it, to the committer
+     * instead of committing it on the calling thread
+     */
+    public RxnormSessionPool withCommitter(ObjIntConsumer<Composer> committer) {
+        this.committer = committer;
+        return this;
+    }
+
+    /**
+     * @return what the pool does with each Composer to be committed
+     */
+    public ObjIntConsumer<Composer> getCommitter() {
+        return committer;
+    }
+
+    /**
+     * @param state state of the versions composed in the session
+     * @return a session for one concept or NDC code
+     */
+    public Session session(State state) {
+        if (composer == null) {
+            composer = composerFactory.get();
+        }
+        if (batchSize <= 1) {
+            return open(state);
+        }
+        int index = state.ordinal();
+        if (pooledSessions[index] == null || pooledUses[index] >= batchSize) {
+            pooledSessions[index] = open(state);
+            pooledUses[index] = 0;
+        }
+        pooledUses[index]++;
+        return pooledSessions[index];
+    }
+
+    private Session open(State state) {
+        sessionsOpened++;
+        pendingSessions++;
+        return composer.open(state, time, author, module, path);
+    }
+
+    /**
+     * Records that a concept has been fully composed, and commits if a commit interval has been reached.
+     * Concepts are only committed once all of their sessions have been handed out.
+     */
+    public void conceptComposed() {
+        pendingConcepts++;
+        if ((conceptCommitInterval > 0 && pendingConcepts >= conceptCommitInterval)
+                || (sessionCommitInterval > 0 && pendingSessions >= sessionCommitInterval)) {
+            commit();
+            LOG.debug("Commit {} done, {} sessions opened so far", commits, sessionsOpened);
+        }
+    }
+
+    /**
+     * Commits every session handed out so far. Later calls to {@link #session(State)} open new sessions on a new Composer.
+     */
+    public void commit() {
+        if (composer != null) {
+            committer.accept(composer, pendingConcepts);
+            composer = null;
+            commits++;
+        }
+        Arrays.fill(pooledSessions, null);
+        pendingConcepts = 0;
+        pendingSessions = 0;
+    }
+
+    /**
+     * @return number of sessions opened so far
+     */
+    public int getSessionsOpened() {
+        return sessionsOpened;
+    }
+
+    /**
+     * @return number of commits so far
+     */
+    public int getCommits() {
+        return commits;
+    }
+}
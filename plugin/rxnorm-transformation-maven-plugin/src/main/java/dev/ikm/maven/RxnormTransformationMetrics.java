@@ -0,0 +1,196 @@
+package dev.ikm.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Phase timers and semantic counters of one transformation run, written as a JSON report.
+ * <p>
+ * Timers and counters may be updated from any thread. Phases that run on several threads, such as
+ * composing on parallel workers, report the time summed over the threads, so a phase can take longer
+ * than the run itself.
+ */
+public class RxnormTransformationMetrics {
+    public static final String REPORT_FILE_NAME = "rxnorm-transformation-metrics.json";
+
+    /**
+     * Timed phases of a run
+     */
+    public enum Phase {
+        /** Starting the datastore */
+        INITIALIZE_DATASTORE("initializeDatastore"),
+        /** Opening the source, checking or mapping its parsed snapshot, and loading the previous release */
+        FILE_READ("fileRead"),
+        /** Reading the concepts from the opened source */
+        PARSE("parse"),
+        /** Composing the concepts and their semantics */
+        COMPOSE("compose"),
+        /** Committing the composed sessions */
+        COMMIT("commit"),
+        /** EntityService.endLoadPhase */
+        END_LOAD_PHASE("endLoadPhase"),
+        /** PrimitiveData.stop */
+        STOP("primitiveDataStop");
+
+        private final String jsonName;
+
+        Phase(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    /**
+     * Counted concepts and semantics, by kind. The kinds count active concepts and semantics; what a delta
+     * transformation inactivates, the retired concepts and the values a changed concept no longer has, is
+     * counted apart in {@link #RETIRED_CONCEPTS} and {@link #RETIRED_SEMANTICS}.
+     */
+    public enum Counter {
+        CONCEPTS("concepts"),
+        FQN_DESCRIPTIONS("fullyQualifiedNameDescriptions"),
+        SYNONYM_DESCRIPTIONS("synonymDescriptions"),
+        PRESCRIBABLE_SYNONYM_DESCRIPTIONS("prescribableSynonymDescriptions"),
+        TALLMAN_SYNONYM_DESCRIPTIONS("tallmanSynonymDescriptions"),
+        SNOMED_CT_IDENTIFIERS("snomedCtIdentifiers"),
+        RXCUI_IDENTIFIERS("rxcuiIdentifiers"),
+        VUID_IDENTIFIERS("vuidIdentifiers"),
+        ACTIVE_NDC_IDENTIFIERS("activeNdcIdentifiers"),
+        INACTIVE_NDC_IDENTIFIERS("inactiveNdcIdentifiers"),
+        AXIOMS("axioms"),
+        QUALITATIVE_DISTINCTION_PATTERN("qualitativeDistinctionPattern"),
+        QUANTITY_PATTERN("quantityPattern"),
+        SCHEDULE_PATTERN("schedulePattern"),
+        HUMAN_DRUG_PATTERN("humanDrugPattern"),
+        VET_DRUG_PATTERN("vetDrugPattern"),
+        TALLMAN_SYNONYM_PATTERN("tallmanSynonymPattern"),
+        /** Concepts of the previous release inactivated in delta mode */
+        RETIRED_CONCEPTS("retiredConcepts"),
+        /** Semantics inactivated in delta mode, of retired concepts and of the values a changed concept no longer has */
+        RETIRED_SEMANTICS("retiredSemantics");
+
+        private final String jsonName;
+
+        Counter(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    private final long start = System.nanoTime();
+    private final LongAdder[] phaseNanos = newAdders(Phase.values().length);
+    private final LongAdder[] phaseCalls = newAdders(Phase.values().length);
+    private final LongAdder[] counters = newAdders(Counter.values().length);
+
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Adds the time since startNanos, a {@link System#nanoTime()} value, to the phase
+     */
+    public void record(Phase phase, long startNanos) {
+        phaseNanos[phase.ordinal()].add(System.nanoTime() - startNanos);
+        phaseCalls[phase.ordinal()].increment();
+    }
+
+    public void time(Phase phase, Runnable action) {
+        long startNanos = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(phase, startNanos);
+        }
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @return number of times the phase ran so far, for example the number of concepts composed
+     */
+    public long calls(Phase phase) {
+        return phaseCalls[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return milliseconds spent in the phase so far
+     */
+    public double millis(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum() / 1e6;
+    }
+
+    /**
+     * @return the concepts, with the time spent reading each one added to the phase
+     */
+    public Iterator<RxnormData> timed(Iterator<RxnormData> concepts, Phase phase) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                long startNanos = System.nanoTime();
+                try {
+                    return concepts.hasNext();
+                } finally {
+                    phaseNanos[phase.ordinal()].add(System.nanoTime() - startNanos);
+                }
+            }
+
+            @Override
+            public RxnormData next() {
+                long startNanos = System.nanoTime();
+                try {
+                    return concepts.next();
+                } finally {
+                    record(phase, startNanos);
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes the timers and counters as JSON, with the wall clock time since these metrics were created
+     */
+    public void write(File reportFile) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"wallMillis\": ").append(format((System.nanoTime() - start) / 1e6)).append(",\n");
+        json.append("  \"phases\": {\n");
+        Phase[] phases = Phase.values();
+        for (int i = 0; i < phases.length; i++) {
+            json.append("    \"").append(phases[i].jsonName).append("\": {\"millis\": ").append(format(millis(phases[i])))
+                    .append(", \"calls\": ").append(phaseCalls[i].sum()).append('}')
+                    .append(i < phases.length - 1 ? ",\n" : "\n");
+        }
+        json.append("  },\n");
+        json.append("  \"counters\": {\n");
+        Counter[] kinds = Counter.values();
+        for (int i = 0; i < kinds.length; i++) {
+            json.append("    \"").append(kinds[i].jsonName).append("\": ").append(counters[i].sum())
+                    .append(i < kinds.length - 1 ? ",\n" : "\n");
+        }
+        json.append("  }\n");
+        json.append("}\n");
+
+        File parent = reportFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+}
@@ -1,11 +1,12 @@
 package dev.ikm.maven;
 
+import dev.ikm.maven.RxnormTransformationMetrics.Counter;
+import dev.ikm.maven.RxnormTransformationMetrics.Phase;
 import dev.ikm.tinkar.common.id.PublicIds;
 import dev.ikm.tinkar.common.service.CachingService;
 import dev.ikm.tinkar.common.service.PrimitiveData;
 import dev.ikm.tinkar.common.service.ServiceKeys;
 import dev.ikm.tinkar.common.service.ServiceProperties;
-import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
 import dev.ikm.tinkar.composer.Composer;
 import dev.ikm.tinkar.composer.Session;
 import dev.ikm.tinkar.composer.assembler.ConceptAssembler;
@@ -14,6 +15,7 @@
 import dev.ikm.tinkar.entity.EntityService;
 import dev.ikm.tinkar.terms.EntityProxy;
 import dev.ikm.tinkar.terms.State;
+import jdk.jfr.Recording;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -24,16 +26,20 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
 import static dev.ikm.tinkar.terms.TinkarTerm.DESCRIPTION_CASE_SENSITIVE;
 import static dev.ikm.tinkar.terms.TinkarTerm.DESCRIPTION_NOT_CASE_SENSITIVE;
@@ -58,15 +64,166 @@ public class RxnormTransformationMojo extends AbstractMojo {
     @Parameter(property = "datastorePath", required = true)
     private String datastorePath;
 
-    @Parameter(property = "inputDirectoryPath", required = true)
-    private String inputDirectoryPath;
-
     @Parameter(property = "dataOutputPath", required = true)
     private String dataOutputPath;
 
     @Parameter(property = "controllerName", defaultValue = "Open SpinedArrayStore")
     private String controllerName;
+
+    /**
+     * How the OWL file is read: STREAMING reads it line by line, MEMORY_MAPPED maps it and scans it in place,
+     * PARALLEL maps it and parses chunks of it ahead on parseParallelism threads, holding a few chunks per thread at a time
+     */
+    @Parameter(property = "parseMode", defaultValue = "STREAMING")
+    private RxnormParseMode parseMode;
+
+    /**
+     * Number of threads used by the PARALLEL parse mode, 0 for every available processor
+     */
+    @Parameter(property = "parseParallelism", defaultValue = "0")
+    private int parseParallelism;
+
+    /**
+     * Load the parsed concepts from a binary snapshot next to the OWL file when it matches the file's
+     * content hash, and write the snapshot when it does not
+     */
+    @Parameter(property = "parsedSnapshot", defaultValue = "true")
+    private boolean parsedSnapshot;
+
+    /**
+     * Number of threads composing concepts, each into its own Composer. 1 composes on the calling thread.
+     */
+    @Parameter(property = "composeWorkers", defaultValue = "1")
+    private int composeWorkers;
+
+    /**
+     * Number of concepts, or NDC codes, composed into one pooled session per state. 1 opens a session
+     * for every concept and NDC code.
+     */
+    @Parameter(property = "sessionBatchSize", defaultValue = "1")
+    private int sessionBatchSize;
+
+    /**
+     * Commit the composed concepts every commitInterval concepts, 0 to commit once at the end
+     */
+    @Parameter(property = "commitInterval", defaultValue = "0")
+    private int commitInterval;
+
+    /**
+     * Commit the composed concepts as soon as sessionCommitInterval sessions are pending, 0 to not commit by session count
+     */
+    @Parameter(property = "sessionCommitInterval", defaultValue = "0")
+    private int sessionCommitInterval;
+
+    /**
+     * Run parsing, composing on composeWorkers workers, and committing as overlapping stages connected by
+     * bounded queues. Each worker hands its Composer to the committer at its commit interval.
+     */
+    @Parameter(property = "pipeline", defaultValue = "false")
+    private boolean pipeline;
+
+    /**
+     * Run the compose workers of the pipeline on virtual threads
+     */
+    @Parameter(property = "pipelineVirtualThreads", defaultValue = "false")
+    private boolean pipelineVirtualThreads;
+
+    /**
+     * Number of parsed concepts that may wait for a compose worker in the pipeline
+     */
+    @Parameter(property = "pipelineConceptQueueCapacity", defaultValue = "1024")
+    private int pipelineConceptQueueCapacity;
+
+    /**
+     * Number of composed Composers that may wait for the committer in the pipeline
+     */
+    @Parameter(property = "pipelineCommitQueueCapacity", defaultValue = "2")
+    private int pipelineCommitQueueCapacity;
+
+    /**
+     * Seconds between logged reports of the pipeline's queue depths and stage throughput, 0 to only report at the end
+     */
+    @Parameter(property = "pipelineReportSeconds", defaultValue = "10")
+    private int pipelineReportSeconds;
+
+    /**
+     * OWL file, zipped release or parsed snapshot of the previous release. When set, only the concepts
+     * added, changed or retired since that release are composed, and retired concepts, NDC codes and
+     * values are inactivated.
+     */
+    @Parameter(property = "previousRxnormOwlFile")
+    private File previousRxnormOwl;
+
+    /**
+     * Commit, save the datastore and write a checkpoint to checkpointFile every checkpointInterval concepts,
+     * 0 to not write checkpoints. Checkpoints are written when composing on one thread, without the pipeline.
+     */
+    @Parameter(property = "checkpointInterval", defaultValue = "0")
+    private int checkpointInterval;
+
+    /**
+     * Checkpoint file written and resumed from, by default the OWL file or zip name with a .checkpoint suffix in dataOutputPath
+     */
+    @Parameter(property = "checkpointFile")
+    private File checkpointFile;
+
+    /**
+     * Resume from the checkpoint in checkpointFile, skipping the concepts it records as committed, when it
+     * was written for the same inputs and datastore
+     */
+    @Parameter(property = "resume", defaultValue = "false")
+    private boolean resume;
+
+    /**
+     * Record a Java Flight Recorder file of the run, with the RxNorm parse, compose and commit events, to this file
+     */
+    @Parameter(property = "flightRecording")
+    private File flightRecording;
+
+    /**
+     * JDK configuration of the flight recording, "default" or "profile"
+     */
+    @Parameter(property = "flightRecordingSettings", defaultValue = "default")
+    private String flightRecordingSettings;
+
+    /**
+     * Only record RxNorm parse, transform and compose events that take at least this many milliseconds
+     */
+    @Parameter(property = "flightRecordingThresholdMillis", defaultValue = "1")
+    private long flightRecordingThresholdMillis;
+
+    /**
+     * Seconds between progress reports while composing, with the concepts composed, the rate, the heap in
+     * use and the estimated time to completion, 0 to not report progress
+     */
+    @Parameter(property = "progressIntervalSeconds", defaultValue = "30")
+    private int progressIntervalSeconds;
+
+    /**
+     * Seconds of recent progress the reported compose rate and estimated time to completion are based on
+     */
+    @Parameter(property = "progressWindowSeconds", defaultValue = "120")
+    private int progressWindowSeconds;
+
+    /**
+     * Run one stage alone to measure its time and allocation: PARSE parses the OWL file without starting
+     * the datastore, COMPOSE composes the parsed concepts into an ephemeral store that is discarded.
+     * Unset for a full transformation.
+     */
+    @Parameter(property = "dryRun")
+    private RxnormDryRunMode dryRun;
+
+    /**
+     * Datastore controller of the COMPOSE dry run
+     */
+    @Parameter(property = "dryRunControllerName", defaultValue = RxnormDryRunMode.EPHEMERAL_CONTROLLER_NAME)
+    private String dryRunControllerName;
+
     private UUID namespace;
+    private RxnormTransformationMetrics metrics;
+    private RxnormReleaseDelta releaseDelta;
+    private final Map<File, byte[]> sourceHashes = new HashMap<>();
+    private RxnormUuidGenerator uuidGenerator;
     private final String rxnormAuthorStr = "RxNorm Author";
     private EntityProxy.Concept rxnormAuthor;
 
@@ -76,74 +233,379 @@ public class RxnormTransformationMojo extends AbstractMojo {
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         LOG.info("########## Rxnorm Transformer Starting...");
-
-        this.namespace = UUID.fromString(namespaceString);
-        File datastore = new File(datastorePath);
-        this.rxnormModule = EntityProxy.Concept.make(PublicIds.of(UUID.fromString(RxnormUtility.RXNORM_MODULE)));
-        this.rxnormAuthor = EntityProxy.Concept.make(PublicIds.of(UUID.fromString(RxnormUtility.RXNORM_AUTHOR)));
-
-//        try {
-//            unzipRawData(inputDirectoryPath);
-//        } catch (IOException e) {
-//            throw new RuntimeException(e);
-//        }
-
-        initializeDatastore(datastore);
-        EntityService.get().beginLoadPhase();
-
+        this.metrics = new RxnormTransformationMetrics();
+        Recording recording = startFlightRecording();
         try {
-            Composer composer = new Composer("Rxnorm Transformer Composer");
+            this.namespace = UUID.fromString(namespaceString);
+            this.uuidGenerator = new RxnormUuidGenerator(namespace);
+            File datastore = new File(datastorePath);
+            this.rxnormModule = EntityProxy.Concept.make(PublicIds.of(UUID.fromString(RxnormUtility.RXNORM_MODULE)));
+            this.rxnormAuthor = EntityProxy.Concept.make(PublicIds.of(UUID.fromString(RxnormUtility.RXNORM_AUTHOR)));
+
+            if (dryRun == RxnormDryRunMode.PARSE) {
+                dryRunParse();
+                return;
+            }
+
+            String datastoreController = dryRun == RxnormDryRunMode.COMPOSE ? dryRunControllerName : controllerName;
+            metrics.time(Phase.INITIALIZE_DATASTORE, () -> initializeDatastore(datastore, datastoreController));
+            EntityService.get().beginLoadPhase();
 
             try {
                 LOG.info("Starting rxnorm owl file processing...");
-                createConcepts(composer);
-            } catch (Exception e) {
-                LOG.error("Error during data processing", e);
+                createConcepts();
+            } finally {
+                metrics.time(Phase.END_LOAD_PHASE, () -> EntityService.get().endLoadPhase());
+                metrics.time(Phase.STOP, PrimitiveData::stop);
             }
-            LOG.info("Committing all sessions...");
-            composer.commitAllSessions();
-            LOG.info("Sessions committed successfully");
         } finally {
-            EntityService.get().endLoadPhase();
-            PrimitiveData.stop();
+            // Also reached when the datastore cannot be started, so the recording is always stopped and closed
+            writeMetrics();
+            stopFlightRecording(recording);
             LOG.info("########## Rxnorm Transformation Completed.");
         }
     }
 
+    /**
+     * Parses the OWL file, without the parsed snapshot, and reports the parse time, allocation and statistics
+     *
+     * @throws MojoExecutionException if the OWL file cannot be parsed
+     */
+    private void dryRunParse() throws MojoExecutionException {
+        try {
+            dryRunParse(RxnormOwlSource.of(rxnormOwl));
+        } catch (Exception e) {
+            throw new MojoExecutionException("Error parsing RxNorm OWL file " + rxnormOwl + " in the dry run", e);
+        }
+    }
+
+    private void dryRunParse(RxnormOwlSource owlSource) throws IOException {
+        LOG.info("Dry run: parsing " + owlSource + " with parse mode " + parseMode);
+        long allocatedStart = allocatedBytes();
+        long start = System.nanoTime();
+        long concepts = 0;
+        long ndcCodes = 0;
+        long tallmanSynonyms = 0;
+        long axioms = 0;
+        try (Stream<RxnormData> rxnormConcepts = RxnormUtility.streamRxnormData(owlSource, parseMode, parseParallelism)) {
+            Iterator<RxnormData> iterator = metrics.timed(rxnormConcepts.iterator(), Phase.PARSE);
+            while (iterator.hasNext()) {
+                RxnormData rxnormData = iterator.next();
+                concepts++;
+                ndcCodes += rxnormData.ndcCodeCount();
+                tallmanSynonyms += rxnormData.getTallmanSynonyms().size();
+                if (!rxnormData.getEquivalentClassesStr().isEmpty()) {
+                    axioms++;
+                }
+            }
+        }
+        LOG.info(String.format("Dry run PARSE: %d concepts, %d NDC codes, %d Tallman synonyms, %d axioms in %.1f ms, %s allocated",
+                concepts, ndcCodes, tallmanSynonyms, axioms, (System.nanoTime() - start) / 1e6, formatAllocated(allocatedStart)));
+    }
+
+    /**
+     * @return bytes allocated on the heap by all threads since the JVM started, or -1 if the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static String formatAllocated(long allocatedStart) {
+        long allocatedEnd = allocatedBytes();
+        if (allocatedStart < 0 || allocatedEnd < 0) {
+            return "unknown bytes";
+        }
+        return String.format("%.1f MB", (allocatedEnd - allocatedStart) / (1024.0 * 1024.0));
+    }
+
+    /**
+     * @return the flight recording started if one was requested, or null
+     */
+    private Recording startFlightRecording() {
+        if (flightRecording == null) {
+            return null;
+        }
+        try {
+            File parent = flightRecording.getAbsoluteFile().getParentFile();
+            Files.createDirectories(parent.toPath());
+            Recording recording = RxnormFlightRecorder.startRecording(flightRecording, flightRecordingSettings,
+                    Duration.ofMillis(flightRecordingThresholdMillis));
+            LOG.info("Started flight recording to " + flightRecording);
+            return recording;
+        } catch (IOException | ParseException e) {
+            LOG.warn("Cannot start flight recording to " + flightRecording, e);
+            return null;
+        }
+    }
+
+    private void stopFlightRecording(Recording recording) {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+            LOG.info("Wrote flight recording to " + flightRecording);
+        }
+    }
+
+    /**
+     * Logs the time of each phase and writes the metrics report to dataOutputPath
+     */
+    private void writeMetrics() {
+        for (Phase phase : Phase.values()) {
+            LOG.info(String.format("Phase %s took %.1f ms", phase, metrics.millis(phase)));
+        }
+        File reportFile = new File(dataOutputPath, RxnormTransformationMetrics.REPORT_FILE_NAME);
+        try {
+            metrics.write(reportFile);
+            LOG.info("Wrote transformation metrics to " + reportFile);
+        } catch (IOException e) {
+            LOG.warn("Cannot write transformation metrics to " + reportFile, e);
+        }
+    }
+
     /**
      * Process OWL file and Creates Concepts for each Class
+     *
+     * @throws MojoExecutionException if the OWL file cannot be processed or the sessions cannot be committed
      */
-    private void createConcepts(Composer composer){
+    private void createConcepts() throws MojoExecutionException {
         LOG.info("Starting to create concepts from RxNorm OWL file...");
 
-        // Parse the date from the filename
-        String fileName = rxnormOwl.getName();
-        long timeForStamp = RxnormUtility.parseTimeFromFileName(fileName);
-
         try {
-            String owlContent = RxnormUtility.readFile(rxnormOwl);
+            // A zipped release is read straight from its OWL entry
+            RxnormOwlSource owlSource = RxnormOwlSource.of(rxnormOwl);
 
-            // Process the OWL content to extract class declarations and annotations
-            List<RxnormData> rxnormConcepts = RxnormUtility.extractRxnormData(owlContent);
+            // Parse the date from the filename
+            String fileName = owlSource.getOwlFileName();
+            long timeForStamp = RxnormUtility.parseTimeFromFileName(fileName);
 
-            LOG.info("Found " + rxnormConcepts.size() + " class declarations in the OWL file");
+            // Stream the OWL content one class block at a time to extract class declarations and annotations
+            LOG.info("Parsing " + owlSource + " with parse mode " + parseMode);
+            processConcepts(owlSource, timeForStamp);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Error processing RxNorm OWL file " + rxnormOwl, e);
+        }
+    }
 
-            // Create concepts for each class
-            for (RxnormData rxnormConcept : rxnormConcepts) {
-                createRxnormConcept(rxnormConcept, timeForStamp, composer);
+    private void processConcepts(RxnormOwlSource owlSource, long timeForStamp) throws IOException, InterruptedException, ExecutionException {
+        long readStart = System.nanoTime();
+        if (previousRxnormOwl != null) {
+            LOG.info("Computing the delta against the previous release " + previousRxnormOwl);
+            try (Stream<RxnormData> previousConcepts = previousRxnormOwl.getName().endsWith(RxnormParsedSnapshot.SNAPSHOT_SUFFIX)
+                    ? RxnormParsedSnapshot.read(previousRxnormOwl)
+                    : streamRxnormData(RxnormOwlSource.of(previousRxnormOwl))) {
+                releaseDelta = RxnormReleaseDelta.of(previousConcepts.iterator());
             }
+        }
 
+        RxnormCheckpoint checkpoint = null;
+        int resumeFrom = 0;
+        if (dryRun == RxnormDryRunMode.COMPOSE && (checkpointInterval > 0 || resume)) {
+            LOG.warn("Checkpoints are not written or resumed in a dry run");
+        } else if (checkpointInterval > 0 || resume) {
+            checkpoint = RxnormCheckpoint.of(checkpointFile == null ? RxnormCheckpoint.checkpointFileFor(new File(dataOutputPath), owlSource) : checkpointFile,
+                    sourceHash(owlSource.getFile()), previousRxnormOwl == null ? null : sourceHash(previousRxnormOwl), new File(datastorePath));
+            if (resume) {
+                if (checkpoint.isComplete()) {
+                    LOG.info("Checkpoint " + checkpoint.getFile() + " records a complete transformation, nothing to resume");
+                    return;
+                }
+                resumeFrom = checkpoint.committedConcepts();
+            }
+        }
+        if (checkpointInterval > 0 && (pipeline || composeWorkers > 1)) {
+            LOG.warn("Checkpoints are only written when composing on one thread without the pipeline");
+        }
+
+        try (Stream<RxnormData> rxnormConcepts = dryRun == RxnormDryRunMode.COMPOSE
+                ? parseUpFront(owlSource)
+                : streamRxnormData(owlSource)) {
+            metrics.record(Phase.FILE_READ, readStart);
+            int conceptCount = 0;
+
+            // Create concepts for each class, or only for the changes since the previous release
+            Iterator<RxnormData> iterator = metrics.timed(releaseDelta == null
+                    ? rxnormConcepts.iterator()
+                    : releaseDelta.changes(rxnormConcepts.iterator()), Phase.PARSE);
+            if (resumeFrom > 0) {
+                LOG.info("Resuming after the " + resumeFrom + " concepts committed before the checkpoint");
+                conceptCount = RxnormCheckpoint.skip(iterator, resumeFrom);
+            }
+            long composeAllocatedStart = allocatedBytes();
+            long composeStart = System.nanoTime();
+            try (RxnormProgressReporter progress = progressIntervalSeconds > 0
+                    ? new RxnormProgressReporter(() -> metrics.calls(Phase.COMPOSE), conceptsToCompose(owlSource, resumeFrom),
+                    progressIntervalSeconds, progressWindowSeconds)
+                    : null) {
+                if (pipeline) {
+                    LOG.info("Composing concepts in a pipeline with " + Math.max(1, composeWorkers) + " compose workers"
+                            + (pipelineVirtualThreads ? " on virtual threads" : ""));
+                    conceptCount += new RxnormComposePipeline(composeWorkers, pipelineVirtualThreads, pipelineConceptQueueCapacity,
+                            pipelineCommitQueueCapacity, pipelineReportSeconds)
+                            .run(iterator,
+                                    worker -> newSessionPool("Rxnorm Transformer Composer " + worker, timeForStamp),
+                                    (rxnormData, workerSessions) -> createRxnormConcept(rxnormData, timeForStamp, workerSessions));
+                } else if (composeWorkers > 1) {
+                    LOG.info("Composing concepts on " + composeWorkers + " workers");
+                    conceptCount += RxnormParallelComposer.compose(iterator, composeWorkers,
+                            worker -> newSessionPool("Rxnorm Transformer Composer " + worker, timeForStamp),
+                            (rxnormData, workerSessions) -> createRxnormConcept(rxnormData, timeForStamp, workerSessions));
+                } else {
+                    RxnormSessionPool sessions = newSessionPool("Rxnorm Transformer Composer", timeForStamp);
+                    try {
+                        while (iterator.hasNext()) {
+                            createRxnormConcept(iterator.next(), timeForStamp, sessions);
+                            sessions.conceptComposed();
+                            conceptCount++;
+                            if (checkpointInterval > 0 && conceptCount % checkpointInterval == 0) {
+                                sessions.commit();
+                                PrimitiveData.save();
+                                checkpoint.write(conceptCount, false);
+                            }
+                        }
+                    } finally {
+                        LOG.info("Committing all sessions...");
+                        sessions.commit();
+                        LOG.info("Sessions committed successfully");
+                    }
+                    LOG.info("Opened " + sessions.getSessionsOpened() + " sessions in " + sessions.getCommits() + " commits");
+                }
+            }
+
+            if (dryRun == RxnormDryRunMode.COMPOSE) {
+                LOG.info(String.format("Dry run COMPOSE: %d concepts composed and committed in %.1f ms, %s allocated, discarding the %s",
+                        conceptCount, (System.nanoTime() - composeStart) / 1e6, formatAllocated(composeAllocatedStart), dryRunControllerName));
+            }
+            if (checkpoint != null) {
+                PrimitiveData.save();
+                checkpoint.write(conceptCount, true);
+            }
+            if (releaseDelta != null) {
+                LOG.info("Found " + (releaseDelta.getAdded() + releaseDelta.getChanged() + releaseDelta.getUnchanged())
+                        + " class declarations in the OWL file");
+                LOG.info("Composed " + conceptCount + " concepts of the delta: " + releaseDelta.getAdded() + " added, "
+                        + releaseDelta.getChanged() + " changed and " + releaseDelta.getRetired() + " retired, skipped "
+                        + releaseDelta.getUnchanged() + " unchanged");
+            } else {
+                LOG.info("Found " + conceptCount + " class declarations in the OWL file");
+            }
             LOG.info("Completed creating RxNorm concepts");
+        }
+    }
 
-        } catch (Exception e) {
-            LOG.error("Error processing RxNorm OWL file", e);
+    /**
+     * @return number of concepts left to compose, from the concept count of a parsed snapshot at least as
+     * recent as the source, or -1 if it is not known
+     */
+    private long conceptsToCompose(RxnormOwlSource owlSource, int resumeFrom) throws IOException {
+        File snapshotFile = RxnormParsedSnapshot.snapshotFileFor(owlSource);
+        if (!parsedSnapshot || releaseDelta != null || snapshotFile.lastModified() < owlSource.getFile().lastModified()) {
+            return -1;
         }
+        int conceptCount = RxnormParsedSnapshot.conceptCount(snapshotFile);
+        return conceptCount < 0 ? -1 : Math.max(0, conceptCount - resumeFrom);
     }
 
     /**
-     * Creates a RxNorm concept from a class ID
+     * Reads every concept into memory before composing, so that the COMPOSE dry run measures composition alone
      */
-    private void createRxnormConcept(RxnormData rxnormData, long time, Composer composer) {
+    private Stream<RxnormData> parseUpFront(RxnormOwlSource owlSource) throws IOException {
+        List<RxnormData> concepts;
+        try (Stream<RxnormData> rxnormConcepts = streamRxnormData(owlSource)) {
+            concepts = rxnormConcepts.toList();
+        }
+        LOG.info("Dry run: parsed " + concepts.size() + " concepts before composing");
+        return concepts.stream();
+    }
+
+    private Stream<RxnormData> streamRxnormData(RxnormOwlSource owlSource) throws IOException {
+        return parsedSnapshot
+                ? RxnormParsedSnapshot.streamRxnormData(owlSource, sourceHash(owlSource.getFile()), parseMode, parseParallelism)
+                : RxnormUtility.streamRxnormData(owlSource, parseMode, parseParallelism);
+    }
+
+    /**
+     * @return the content hash of the file, computed once per run and shared by the parsed snapshot and the checkpoint
+     */
+    private byte[] sourceHash(File file) throws IOException {
+        byte[] hash = sourceHashes.get(file);
+        if (hash == null) {
+            hash = RxnormParsedSnapshot.hash(file);
+            sourceHashes.put(file, hash);
+        }
+        return hash;
+    }
+
+    private RxnormSessionPool newSessionPool(String composerName, long time) {
+        return new RxnormSessionPool(() -> new Composer(composerName), time, rxnormAuthor, rxnormModule, DEVELOPMENT_PATH, sessionBatchSize)
+                .withCommitInterval(commitInterval, sessionCommitInterval)
+                .withCommitter((composer, concepts) -> {
+                    RxnormFlightRecorder.CommitEvent event = new RxnormFlightRecorder.CommitEvent();
+                    event.begin();
+                    metrics.time(Phase.COMMIT, composer::commitAllSessions);
+                    event.concepts = concepts;
+                    event.commit();
+                });
+    }
+
+    /**
+     * Creates a RxNorm concept from a class ID. A retired concept is inactivated with all of its semantics,
+     * and the semantics of values a changed concept no longer has are inactivated.
+     */
+    private void createRxnormConcept(RxnormData rxnormData, long time, RxnormSessionPool sessions) {
+        RxnormFlightRecorder.ComposeConceptEvent event = new RxnormFlightRecorder.ComposeConceptEvent();
+        event.begin();
+        long composeStart = System.nanoTime();
+        try {
+            if (rxnormData.isRetired()) {
+                composeRxnormConcept(rxnormData, time, sessions, State.INACTIVE, true);
+                return;
+            }
+            composeRxnormConcept(rxnormData, time, sessions, State.ACTIVE, true);
+            if (releaseDelta != null) {
+                RxnormData retiredValues = releaseDelta.retiredValues(rxnormData);
+                if (retiredValues != null) {
+                    composeRxnormConcept(retiredValues, time, sessions, State.INACTIVE, false);
+                }
+            }
+        } finally {
+            metrics.record(Phase.COMPOSE, composeStart);
+            event.end();
+            if (event.shouldCommit()) {
+                event.rxnormId = rxnormData.getId();
+                event.retired = rxnormData.isRetired();
+                event.semantics = semanticCount(rxnormData);
+                event.ndcCodes = rxnormData.ndcCodeCount();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return number of semantics composed for the concept, not counting the inactivated values of a changed concept
+     */
+    private static int semanticCount(RxnormData rxnormData) {
+        int[] count = {0};
+        for (String value : new String[]{rxnormData.getRxnormName(), rxnormData.getRxnormSynonym(), rxnormData.getPrescribableSynonym(),
+                rxnormData.getSnomedCtId(), rxnormData.getRxCuiId(), rxnormData.getVuidId(), rxnormData.getEquivalentClassesStr(),
+                rxnormData.getQualitativeDistinction(), rxnormData.getQuantity(), rxnormData.getSchedule(),
+                rxnormData.getHumanDrug(), rxnormData.getVetDrug()}) {
+            if (!value.isEmpty()) {
+                count[0]++;
+            }
+        }
+        rxnormData.forEachNdcCode((ndcCode, endDate) -> count[0]++);
+        return count[0] + 2 * rxnormData.getTallmanSynonyms().size();
+    }
+
+    /**
+     * @param state state of the concept and its semantics, NDC codes are inactive when past their end date
+     * @param composeConcept false to only compose the semantics, leaving the concept version as it is
+     */
+    private void composeRxnormConcept(RxnormData rxnormData, long time, RxnormSessionPool sessions, State state, boolean composeConcept) {
         String rxnormId = rxnormData.getId();
 
         if (rxnormId == null || rxnormId.isEmpty()) {
@@ -152,24 +614,28 @@ private void createRxnormConcept(RxnormData rxnormData, long time, Composer comp
         }
 
         // Generate UUID based on RxNorm ID
-        UUID conceptUuid = UuidT5Generator.get(namespace, rxnormId + "rxnorm");
+        UUID conceptUuid = uuidGenerator.get(rxnormId, "rxnorm");
 
-        // Create session with Active state, RxNorm Author, RxNorm Module, and MasterPath
-        Session session = composer.open(State.ACTIVE, time, rxnormAuthor, rxnormModule, DEVELOPMENT_PATH);
+        // Create session with the state, RxNorm Author, RxNorm Module, and MasterPath
+        Session session = sessions.session(state);
 
         try {
             EntityProxy.Concept concept = EntityProxy.Concept.make(PublicIds.of(conceptUuid));
+            RxnormUuidGenerator.ConceptUuids semanticUuids = uuidGenerator.forConcept(conceptUuid);
 
-            session.compose((ConceptAssembler assembler) -> {
-                assembler.concept(concept);
-            });
+            if (composeConcept) {
+                session.compose((ConceptAssembler assembler) -> {
+                    assembler.concept(concept);
+                });
+                metrics.increment(state == State.ACTIVE ? Counter.CONCEPTS : Counter.RETIRED_CONCEPTS);
+            }
 
-            createDescriptionSemantic(session, concept, rxnormData);
-            createIdentifierSemantic(composer, session, concept, rxnormData, time);
+            createDescriptionSemantic(session, state, concept, semanticUuids, rxnormData);
+            createIdentifierSemantic(sessions, session, state, concept, semanticUuids, rxnormData, time);
             if(!rxnormData.getEquivalentClassesStr().isEmpty()) {
-                createStatedDefinitionSemantics(session, concept, rxnormData);
+                createStatedDefinitionSemantics(session, state, concept, semanticUuids, rxnormData);
             }
-            createPatternSemantics(session, concept, rxnormData);
+            createPatternSemantics(session, state, concept, semanticUuids, rxnormData);
         } catch (Exception e) {
             LOG.error("Error creating concept for RxNorm ID: " + rxnormId, e);
         }
@@ -179,14 +645,16 @@ private void createRxnormConcept(RxnormData rxnormData, long time, Composer comp
      * Creates a description semantic with the specified description type.
      *
      * @param session The current session
+     * @param state state of the session
      * @param concept The concept to attach the description to
+     * @param semanticUuids generates the UUIDs of the concept's semantics
      * @param rxnormData contains fqn, and synonyms
      */
-    private void createDescriptionSemantic(Session session, EntityProxy.Concept concept, RxnormData rxnormData) {
+    private void createDescriptionSemantic(Session session, State state, EntityProxy.Concept concept, RxnormUuidGenerator.ConceptUuids semanticUuids, RxnormData rxnormData) {
         try {
             if(!rxnormData.getRxnormName().isEmpty()) {
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getRxnormName() + "DESC")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getRxnormName(), "DESC")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
                         .pattern(DESCRIPTION_PATTERN)
@@ -197,11 +665,12 @@ private void createDescriptionSemantic(Session session, EntityProxy.Concept conc
                                 .with(DESCRIPTION_NOT_CASE_SENSITIVE)
                                 .with(FULLY_QUALIFIED_NAME_DESCRIPTION_TYPE)
                         ));
+                count(state, Counter.FQN_DESCRIPTIONS);
             }
 
             if(!rxnormData.getRxnormSynonym().isEmpty()){
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getRxnormSynonym() + "SDESC")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getRxnormSynonym(), "SDESC")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
                         .pattern(DESCRIPTION_PATTERN)
@@ -212,10 +681,11 @@ private void createDescriptionSemantic(Session session, EntityProxy.Concept conc
                                 .with(DESCRIPTION_NOT_CASE_SENSITIVE)
                                 .with(REGULAR_NAME_DESCRIPTION_TYPE)
                         ));
+                count(state, Counter.SYNONYM_DESCRIPTIONS);
             }
             if(!rxnormData.getPrescribableSynonym().isEmpty()){
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getPrescribableSynonym() + "PSDESC")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getPrescribableSynonym(), "PSDESC")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
                         .pattern(DESCRIPTION_PATTERN)
@@ -226,6 +696,7 @@ private void createDescriptionSemantic(Session session, EntityProxy.Concept conc
                                 .with(DESCRIPTION_NOT_CASE_SENSITIVE)
                                 .with(REGULAR_NAME_DESCRIPTION_TYPE)
                         ));
+                count(state, Counter.PRESCRIBABLE_SYNONYM_DESCRIPTIONS);
             }
         } catch (Exception e) {
             LOG.error("Error creating description semantic for concept: " + concept, e);
@@ -235,16 +706,19 @@ private void createDescriptionSemantic(Session session, EntityProxy.Concept conc
     /**
      * Creates a description semantic with the specified description type.
      *
+     * @param sessions hands out the sessions of the NDC codes
      * @param session The current session
+     * @param state state of the session, inactive NDC codes stay inactive whatever their end date
      * @param concept The concept to attach the description to
+     * @param semanticUuids generates the UUIDs of the concept's semantics
      * @param rxnormData contains necessary ids for identification
      */
-    private void createIdentifierSemantic(Composer composer, Session session, EntityProxy.Concept concept, RxnormData rxnormData, long time) {
+    private void createIdentifierSemantic(RxnormSessionPool sessions, Session session, State state, EntityProxy.Concept concept, RxnormUuidGenerator.ConceptUuids semanticUuids, RxnormData rxnormData, long time) {
         try {
 
             if(!rxnormData.getSnomedCtId().isEmpty()) {
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getSnomedCtId() + "SNOMEDID")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getSnomedCtId(), "SNOMEDID")));
                 EntityProxy.Concept snomedIdentifier = RxnormUtility.getSnomedIdentifierConcept();
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
@@ -254,11 +728,12 @@ private void createIdentifierSemantic(Composer composer, Session session, Entity
                                 .with(snomedIdentifier)
                                 .with(rxnormData.getSnomedCtId())
                         ));
+                count(state, Counter.SNOMED_CT_IDENTIFIERS);
             }
 
             if(!rxnormData.getRxCuiId().isEmpty()){
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getRxCuiId() + "RXID")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getRxCuiId(), "RXID")));
                 EntityProxy.Concept rxnormIdentifier = RxnormUtility.getRxcuidConcept();
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
@@ -268,10 +743,11 @@ private void createIdentifierSemantic(Composer composer, Session session, Entity
                                 .with(rxnormIdentifier)
                                 .with(rxnormData.getRxCuiId())
                         ));
+                count(state, Counter.RXCUI_IDENTIFIERS);
             }
             if(!rxnormData.getVuidId().isEmpty()){
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getVuidId() + "VUID")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getVuidId(), "VUID")));
                 EntityProxy.Concept vhIdentifier = RxnormUtility.getVuidConcept();
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
@@ -281,25 +757,23 @@ private void createIdentifierSemantic(Composer composer, Session session, Entity
                                 .with(vhIdentifier)
                                 .with(rxnormData.getVuidId())
                         ));
+                count(state, Counter.VUID_IDENTIFIERS);
             }
-            if(!rxnormData.getNdcCodesWithEndDates().isEmpty()){
+            if(rxnormData.ndcCodeCount() > 0){
                 EntityProxy.Concept ndcIdentifier = RxnormUtility.getNdcIdentifierConcept();
                 String fileDate = new SimpleDateFormat("yyyyMM").format(new Date(time));
 
-                for (Map.Entry<String, String> entry : rxnormData.getNdcCodesWithEndDates().entrySet()) {
-                    String ndcCode = entry.getKey();
-                    String endDate = entry.getValue();
-
+                rxnormData.forEachNdcCode((ndcCode, endDate) -> {
                     // Determine status based on end date
-                    State state = State.ACTIVE;
+                    State ndcState = state;
                     if (endDate.compareTo(fileDate) < 0) {
-                        state = State.INACTIVE;
+                        ndcState = State.INACTIVE;
                     }
 
                     EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                            PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + ndcCode + "NDCID")));
+                            PublicIds.of(semanticUuids.get(ndcCode, "NDCID")));
 
-                    Session ndcSession = composer.open(state, time, rxnormAuthor, rxnormModule, DEVELOPMENT_PATH);
+                    Session ndcSession = sessions.session(ndcState);
                     ndcSession.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                             .semantic(semantic)
                             .pattern(IDENTIFIER_PATTERN)
@@ -308,7 +782,8 @@ private void createIdentifierSemantic(Composer composer, Session session, Entity
                                     .with(ndcIdentifier)
                                     .with(ndcCode)
                             ));
-                }
+                    count(state, ndcState == State.ACTIVE ? Counter.ACTIVE_NDC_IDENTIFIERS : Counter.INACTIVE_NDC_IDENTIFIERS);
+                });
             }
 
         } catch (Exception e) {
@@ -319,25 +794,26 @@ private void createIdentifierSemantic(Composer composer, Session session, Entity
     /**
      * Creates a stated definition semantic that attaches the respective Owl String to the semantic
      */
-    private void createStatedDefinitionSemantics(Session session, EntityProxy.Concept concept, RxnormData rxnormData) {
+    private void createStatedDefinitionSemantics(Session session, State state, EntityProxy.Concept concept, RxnormUuidGenerator.ConceptUuids semanticUuids, RxnormData rxnormData) {
         String owlExpression = RxnormUtility.transformOwlString(namespace, rxnormData.getEquivalentClassesStr());
-        EntityProxy.Semantic axiomSemantic = EntityProxy.Semantic.make(PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getEquivalentClassesStr() + "AXIOM")));
+        EntityProxy.Semantic axiomSemantic = EntityProxy.Semantic.make(PublicIds.of(semanticUuids.get(rxnormData.getEquivalentClassesStr(), "AXIOM")));
         try {
             session.compose(new AxiomSyntax()
                             .semantic(axiomSemantic)
                             .text(owlExpression),
                     concept);
+            count(state, Counter.AXIOMS);
         } catch (Exception e) {
             LOG.error("Error creating state definition semantic for concept: " + concept, e);
         }
     }
 
-    private void createPatternSemantics(Session session, EntityProxy.Concept concept, RxnormData rxnormData) {
+    private void createPatternSemantics(Session session, State state, EntityProxy.Concept concept, RxnormUuidGenerator.ConceptUuids semanticUuids, RxnormData rxnormData) {
         try {
             if(!rxnormData.getQualitativeDistinction().isEmpty()) {
                 EntityProxy.Pattern qualitativeDistinctionPattern = RxnormUtility.getQualitativeDistinctionPattern();
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getQualitativeDistinction() + "QD")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getQualitativeDistinction(), "QD")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                             .semantic(semantic)
                             .reference(concept)
@@ -346,24 +822,26 @@ private void createPatternSemantics(Session session, EntityProxy.Concept concept
                                     .with(rxnormData.getQualitativeDistinction())
                                     .with(ENGLISH_LANGUAGE)
                             ));
+                count(state, Counter.QUALITATIVE_DISTINCTION_PATTERN);
             }
 
             if(!rxnormData.getQuantity().isEmpty()) {
                 EntityProxy.Pattern quantityPattern = RxnormUtility.getQuantityPattern();
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getQuantity() + "QUANTITY")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getQuantity(), "QUANTITY")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
                         .reference(concept)
                         .pattern(quantityPattern)
                         .fieldValues(fv -> fv.with(rxnormData.getQuantity())
                         ));
+                count(state, Counter.QUANTITY_PATTERN);
             }
 
             if(!rxnormData.getSchedule().isEmpty()) {
                 EntityProxy.Pattern schedulePattern = RxnormUtility.getSchedulePattern();
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getSchedule() + "SCHEDULE")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getSchedule(), "SCHEDULE")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
                         .reference(concept)
@@ -372,46 +850,53 @@ private void createPatternSemantics(Session session, EntityProxy.Concept concept
                                 .with(rxnormData.getSchedule())
                                 .with(ENGLISH_LANGUAGE)
                         ));
+                count(state, Counter.SCHEDULE_PATTERN);
             }
 
             if(!rxnormData.getHumanDrug().isEmpty()) {
                 EntityProxy.Pattern humanDrugPattern = RxnormUtility.getHumanDrugPattern();
                 EntityProxy.Concept humanDrugConcept = RxnormUtility.makeConceptProxy(namespace, rxnormData.getHumanDrug());
-                session.compose((ConceptAssembler conceptAssembler) -> conceptAssembler.concept(humanDrugConcept));
+                if (state == State.ACTIVE) {
+                    session.compose((ConceptAssembler conceptAssembler) -> conceptAssembler.concept(humanDrugConcept));
+                }
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getHumanDrug() + "HD")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getHumanDrug(), "HD")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
                         .reference(concept)
                         .pattern(humanDrugPattern)
                         .fieldValues(fv -> fv.with(humanDrugConcept)
                         ));
+                count(state, Counter.HUMAN_DRUG_PATTERN);
             }
 
             if(!rxnormData.getVetDrug().isEmpty()) {
                 EntityProxy.Pattern vetDrugPattern = RxnormUtility.getVetDrugPattern();
                 EntityProxy.Concept vetDrugConcept = RxnormUtility.makeConceptProxy(namespace, rxnormData.getVetDrug());
-                session.compose((ConceptAssembler conceptAssembler) -> conceptAssembler.concept(vetDrugConcept));
+                if (state == State.ACTIVE) {
+                    session.compose((ConceptAssembler conceptAssembler) -> conceptAssembler.concept(vetDrugConcept));
+                }
                 EntityProxy.Semantic semantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + rxnormData.getVetDrug() + "VD")));
+                        PublicIds.of(semanticUuids.get(rxnormData.getVetDrug(), "VD")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(semantic)
                         .reference(concept)
                         .pattern(vetDrugPattern)
                         .fieldValues(fv -> fv.with(vetDrugConcept)
                         ));
+                count(state, Counter.VET_DRUG_PATTERN);
             }
-             createTallmanSynonymPattern(session, concept, rxnormData);
+             createTallmanSynonymPattern(session, state, concept, semanticUuids, rxnormData);
         } catch (Exception e) {
             LOG.error("Error creating pattern semantic for concept: " + concept, e);
         }
     }
 
-    private void createTallmanSynonymPattern(Session session, EntityProxy.Concept concept, RxnormData rxnormData){
+    private void createTallmanSynonymPattern(Session session, State state, EntityProxy.Concept concept, RxnormUuidGenerator.ConceptUuids semanticUuids, RxnormData rxnormData){
         if(!rxnormData.getTallmanSynonyms().isEmpty()) {
             rxnormData.getTallmanSynonyms().forEach(synonym -> {
                 EntityProxy.Semantic descSemantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + synonym + "TSDESC")));
+                        PublicIds.of(semanticUuids.get(synonym, "TSDESC")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(descSemantic)
                         .pattern(DESCRIPTION_PATTERN)
@@ -422,10 +907,11 @@ private void createTallmanSynonymPattern(Session session, EntityProxy.Concept co
                                 .with(DESCRIPTION_CASE_SENSITIVE)
                                 .with(REGULAR_NAME_DESCRIPTION_TYPE)
                         ));
+                count(state, Counter.TALLMAN_SYNONYM_DESCRIPTIONS);
 
                 EntityProxy.Pattern tallmanSynonymPattern = RxnormUtility.getTallmanSynonymPattern();
                 EntityProxy.Semantic patternSemantic = EntityProxy.Semantic.make(
-                        PublicIds.of(UuidT5Generator.get(namespace, concept.publicId().asUuidArray()[0] + synonym + "Tallman")));
+                        PublicIds.of(semanticUuids.get(synonym, "Tallman")));
                 session.compose((SemanticAssembler semanticAssembler) -> semanticAssembler
                         .semantic(patternSemantic)
                         .reference(concept)
@@ -433,54 +919,19 @@ private void createTallmanSynonymPattern(Session session, EntityProxy.Concept co
                         .fieldValues(fv -> fv
                                 .with(PREFERRED)
                         ));
+                count(state, Counter.TALLMAN_SYNONYM_PATTERN);
             });
         }
     }
 
-
-    private void unzipRawData(String zipFilePath) throws IOException {
-        File outputDirectory = new File(dataOutputPath);
-        try(ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFilePath))) {
-            ZipEntry zipEntry;
-            while ((zipEntry = zis.getNextEntry()) != null) {
-                File newFile = new File(outputDirectory, zipEntry.getName());
-                if(zipEntry.isDirectory()) {
-                    newFile.mkdirs();
-                } else {
-                    new File(newFile.getParent()).mkdirs();
-                    try(FileOutputStream fos = new FileOutputStream(newFile)) {
-                        byte[] buffer = new byte[1024];
-                        int len;
-                        while ((len = zis.read(buffer)) > 0) {
-                            fos.write(buffer,0,len);
-                        }
-                    }
-                }
-                zis.closeEntry();
-            }
-        }
-        searchDataFolder(outputDirectory);
-    }
-
-    private File searchDataFolder(File dir) {
-        if (dir.isDirectory()){
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.getName().equals("Part.csv")) {
-                        rxnormOwl = file;
-                    }
-                    File found = searchDataFolder(file);
-                    if (found != null) {
-                        return found;
-                    }
-                }
-            }
-        }
-        return null;
+    /**
+     * Counts a composed semantic by kind, or as retired when it was composed inactive by the release delta
+     */
+    private void count(State state, Counter counter) {
+        metrics.increment(state == State.ACTIVE ? counter : Counter.RETIRED_SEMANTICS);
     }
 
-    private void initializeDatastore(File datastore){
+    private void initializeDatastore(File datastore, String controllerName){
         CachingService.clearAll();
         ServiceProperties.set(ServiceKeys.DATA_STORE_ROOT, datastore);
         PrimitiveData.selectControllerByName(controllerName);
@@ -1,23 +1,26 @@
 package dev.ikm.maven;
 
-import dev.ikm.tinkar.common.id.*;
 import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
 import dev.ikm.tinkar.terms.EntityProxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class RxnormUtility {
     public static final String RXNORM_MODULE = "e7ead9cc-3711-4353-92b6-8e5d4f4ec723";
@@ -49,160 +52,169 @@ public class RxnormUtility {
     public static final String TALLMAN_SYNONYM_PATTERN_LANGUAGE_MEANING = "22f120a0-bbe7-4bd8-ac86-8c52a01d3ea6";
     
     private static final Logger LOG = LoggerFactory.getLogger(RxnormUtility.class.getSimpleName());
+
+    private static final String SNOMED_URI_PREFIX = "http://snomed.info/id/";
+    private static final String RXNORM_URI_PREFIX = "http://mor.nlm.nih.gov/RXNORM/";
+    private static final String DATA_HAS_VALUE = "DataHasValue(";
+    private static final int MAX_CACHED_UUID_STRINGS = 1 << 16;
+    private static final Map<UUID, Map<String, String>> UUID_STRINGS = new ConcurrentHashMap<>();
     
 
     /**
+     * Streams RxNorm attributes from the OWL file one class block at a time, without loading the
+     * whole file into memory. The returned stream holds the file open and must be closed.
      *
-     * @param file
-     * @return Content of file into a String
-     * @throws IOException
+     * @param file RxNorm OWL file, or a zip containing it
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if the file cannot be opened
      */
-    public static String readFile(File file) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
-        }
-        return content.toString();
+    public static Stream<RxnormData> streamRxnormData(File file) throws IOException {
+        return streamRxnormData(RxnormOwlSource.of(file));
     }
 
     /**
-     * Extracts RxNorm attributes from the OWL content
+     * Streams RxNorm attributes from the OWL source one class block at a time. A zipped OWL file is
+     * read straight from its zip entry. The returned stream holds the source open and must be closed.
+     *
+     * @param source RxNorm OWL source
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if the source cannot be opened
      */
-    public static List<RxnormData> extractRxnormData(String owlContent) {
-        List<RxnormData> attributes = new ArrayList<>();
-
-        // Split the content by "# Class:" to identify each concept section
-        String[] classBlocks = owlContent.split("# Class: ");
-
-        // Skip the first block as it's before the first "# Class:"
-        for (int i = 1; i < classBlocks.length; i++) {
-            String block = classBlocks[i];
-            // Extract the URI from the first line
-            // Format: <http://mor.nlm.nih.gov/RXNORM/996062> (meclizine hydrochloride 25 MG Oral Film)
-            Matcher uriMatcher = Pattern.compile("<([^>]+)>").matcher(block);
-
-            if (uriMatcher.find()) {
-                String uri = uriMatcher.group(1);
-
-                RxnormData concept = new RxnormData(uri);
-
-                // Extract annotations
-                extractAnnotations(block, concept);
-
-                // Extract EquivalentClasses
-                extractEquivalentClasses(block, concept);
-
-                if (uri.startsWith("http://mor.nlm.nih.gov/RXNORM/")) {
-                    attributes.add(concept);
-                } else {
-                    LOG.info("Skipping RxnormData object. Id is null. {}", concept);
-                }
-
-            }
-        }
-
-        return attributes;
+    public static Stream<RxnormData> streamRxnormData(RxnormOwlSource source) throws IOException {
+        RxnormClassBlockReader blockReader = new RxnormClassBlockReader(source.openReader());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(blockReader,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(RxnormUtility::parseClassBlock)
+                .filter(Objects::nonNull)
+                .onClose(() -> {
+                    try {
+                        blockReader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
     }
 
-
     /**
-     * Extracts EquivalentClasses from a class block
+     * Streams RxNorm attributes from the OWL file using the given parse mode. The returned stream
+     * holds the file open and must be closed.
+     *
+     * @param file RxNorm OWL file, or a zip containing it
+     * @param parseMode how the file is read
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if the file cannot be opened
      */
+    public static Stream<RxnormData> streamRxnormData(File file, RxnormParseMode parseMode) throws IOException {
+        return streamRxnormData(RxnormOwlSource.of(file), parseMode, 0);
+    }
+
     /**
-     * Extracts annotations from a class block
+     * Streams RxNorm attributes from the OWL file using the given parse mode. The returned stream
+     * holds the file open and must be closed.
+     *
+     * @param source RxNorm OWL source
+     * @param parseMode how the file is read, a zipped source can only be streamed
+     * @param parallelism worker threads for {@link RxnormParseMode#PARALLEL}, 0 for every available processor
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if the file cannot be opened
      */
-    public static void extractAnnotations(String block, RxnormData data) {
-        // Extract RxNorm_Name
-        Matcher rxnormNameMatcher = Pattern.compile(":RxNorm_Name <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (rxnormNameMatcher.find()) {
-            data.setRxnormName(rxnormNameMatcher.group(1));
-        }
-
-        // Extract RxNorm_Synonym
-        Matcher rxnormSynonymMatcher = Pattern.compile(":RxNorm_Synonym <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (rxnormSynonymMatcher.find()) {
-            data.setRxnormSynonym(rxnormSynonymMatcher.group(1));
-        }
-
-        // Extract Prescribable_Synonym
-        Matcher prescribableSynonymMatcher = Pattern.compile(":Prescribable_Synonym <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (prescribableSynonymMatcher.find()) {
-            data.setPrescribableSynonym(prescribableSynonymMatcher.group(1));
-        }
-
-        // Extract SNOMED CT identifier
-        Matcher snomedCtMatcher = Pattern.compile("oboInOwl:hasDbXref <[^>]+> \"SNOMEDCT:\\s*([^\"]*)\"").matcher(block);
-        if (snomedCtMatcher.find()) {
-            data.setSnomedCtId(snomedCtMatcher.group(1));
+    public static Stream<RxnormData> streamRxnormData(RxnormOwlSource source, RxnormParseMode parseMode, int parallelism) throws IOException {
+        if (source.isZipped() && parseMode != RxnormParseMode.STREAMING) {
+            LOG.warn("Parse mode {} needs an unpacked OWL file, streaming {} instead", parseMode, source);
+            return streamRxnormData(source);
         }
+        return switch (parseMode) {
+            case STREAMING -> streamRxnormData(source);
+            case MEMORY_MAPPED -> streamMappedRxnormData(source.getFile());
+            case PARALLEL -> RxnormParallelOwlParser.stream(source.getFile(), parallelism);
+        };
+    }
 
-        // Extract RxCUI identifier
-        Matcher rxCuiMatcher = Pattern.compile("oboInOwl:hasDbXref <[^>]+> \"RxCUI:\\s*([^\"]*)\"").matcher(block);
-        if (rxCuiMatcher.find()) {
-            data.setRxCuiId(rxCuiMatcher.group(1));
-        }
+    /**
+     * Streams RxNorm attributes from a memory-mapped OWL file, scanning the class blocks in place.
+     * The returned stream holds the mapping and must be closed.
+     *
+     * @param file RxNorm OWL file
+     * @return RxnormData for each RxNorm class, in file order
+     * @throws IOException if the file cannot be mapped
+     */
+    public static Stream<RxnormData> streamMappedRxnormData(File file) throws IOException {
+        RxnormMappedOwlFile mappedFile = new RxnormMappedOwlFile(file);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mappedFile.blocks(),
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(RxnormUtility::parseClassBlock)
+                .filter(Objects::nonNull)
+                .onClose(() -> {
+                    try {
+                        mappedFile.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
 
-        // Extract VUID identifier
-        Matcher vuidMatcher = Pattern.compile("oboInOwl:hasDbXref <[^>]+> \"VUID:\\s*([^\"]*)\"").matcher(block);
-        if (vuidMatcher.find()) {
-            data.setVuidId(vuidMatcher.group(1));
+    /**
+     * Parses a single class block, the text following a "# Class: " marker
+     *
+     * @param block class block
+     * @return RxnormData for the class, or null if the block does not describe an RxNorm class
+     */
+    public static RxnormData parseClassBlock(CharSequence block) {
+        RxnormFlightRecorder.ParseBlockEvent event = new RxnormFlightRecorder.ParseBlockEvent();
+        event.begin();
+        RxnormData concept = parseClassBlockUnrecorded(block);
+        event.end();
+        if (event.shouldCommit()) {
+            event.blockSize = block.length();
+            if (concept != null) {
+                event.rxnormId = concept.getId();
+                event.ndcCodes = concept.ndcCodeCount();
+                event.tallmanSynonyms = concept.getTallmanSynonyms().size();
+            }
+            event.commit();
         }
+        return concept;
+    }
 
-        // Extract NDC codes with their start and end dates
-        Matcher ndcMatcher = Pattern.compile("AnnotationAssertion\\(Annotation\\(:endDate \"(\\d+)\"\\) Annotation\\(:startDate \"\\d+\"\\) :ndc <[^>]+> \"([^\"]*)\"\\)").matcher(block);
-        while (ndcMatcher.find()) {
-            String endDate = ndcMatcher.group(1);
-            String ndcCode = ndcMatcher.group(2);
-            data.addNdcCodeWithEndDate(ndcCode, endDate);
-        }
+    private static RxnormData parseClassBlockUnrecorded(CharSequence block) {
+        // Extract the URI from the first line
+        // Format: <http://mor.nlm.nih.gov/RXNORM/996062> (meclizine hydrochloride 25 MG Oral Film)
+        String uri = RxnormAnnotationTokenizer.classUri(block);
 
-        // Extract QUALITATIVE_DISTINCTION
-        Matcher qualitativeDistinctionMatcher = Pattern.compile(":QUALITATIVE_DISTINCTION <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (qualitativeDistinctionMatcher.find()) {
-            data.setQualitativeDistinction(qualitativeDistinctionMatcher.group(1));
-        }
+        if (uri != null) {
+            RxnormData concept = new RxnormData(uri);
 
-        // Extract QUANTITY
-        Matcher quantityMatcher = Pattern.compile(":QUANTITY <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (quantityMatcher.find()) {
-            data.setQuantity(quantityMatcher.group(1));
-        }
+            // Extract annotations
+            RxnormAnnotationTokenizer.tokenize(block, concept);
 
-        // Extract SCHEDULE
-        Matcher scheduleMatcher = Pattern.compile(":SCHEDULE <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (scheduleMatcher.find()) {
-            data.setSchedule(scheduleMatcher.group(1));
-        }
+            // Extract EquivalentClasses
+            extractEquivalentClasses(block, concept);
 
-        // Extract HUMAN_DRUG
-        Matcher humanDrugMatcher = Pattern.compile(":HUMAN_DRUG <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (humanDrugMatcher.find()) {
-            data.setHumanDrug(humanDrugMatcher.group(1));
+            if (uri.startsWith("http://mor.nlm.nih.gov/RXNORM/")) {
+                return concept;
+            } else {
+                LOG.info("Skipping RxnormData object. Id is null. {}", concept);
+            }
         }
+        return null;
+    }
 
-        // Extract VET_DRUG
-        Matcher vetDrugMatcher = Pattern.compile(":VET_DRUG <[^>]+> \"([^\"]*)\"").matcher(block);
-        if (vetDrugMatcher.find()) {
-            data.setVetDrug(vetDrugMatcher.group(1));
-        }
-
-        // Extract TALLMAN_SYNONYM (can have multiple)
-        Matcher tallmanSynonymMatcher = Pattern.compile(":Tallman_Synonym <[^>]+> \"([^\"]*)\"").matcher(block);
-        while (tallmanSynonymMatcher.find()) {
-            data.addTallmanSynonym(tallmanSynonymMatcher.group(1));
-        }
 
+    /**
+     * Extracts annotations from a class block in a single pass
+     *
+     * @see RxnormAnnotationTokenizer
+     */
+    public static void extractAnnotations(String block, RxnormData data) {
+        RxnormAnnotationTokenizer.tokenize(block, data);
     }
 
     /**
      * Extracts EquivalentClasses from a class block
      */
-    public static void extractEquivalentClasses(String block, RxnormData concept) {
+    public static void extractEquivalentClasses(CharSequence block, RxnormData concept) {
         // Extract the entire EquivalentClasses block with nested parentheses
-        int startIndex = block.indexOf("EquivalentClasses(");
+        int startIndex = RxnormAnnotationTokenizer.indexOf(block, "EquivalentClasses(", 0);
         if (startIndex != -1) {
             // Find the matching closing parenthesis by counting opening and closing parentheses
             int openParenCount = 1;
@@ -220,7 +232,7 @@ public static void extractEquivalentClasses(String block, RxnormData concept) {
 
             if (openParenCount == 0) {
                 // Extract the full block including "EquivalentClasses"
-                String fullEquivalentClasses = block.substring(startIndex, endIndex);
+                String fullEquivalentClasses = block.subSequence(startIndex, endIndex).toString();
                 concept.setEquivalentClassesStr(fullEquivalentClasses);
             }
         }
@@ -257,100 +269,190 @@ public static EntityProxy.Concept makeConceptProxy(UUID namespace, String descri
         return EntityProxy.Concept.make(description, UuidT5Generator.get(namespace, description));
     }
     public static EntityProxy.Concept getSnomedIdentifierConcept(){
-        return EntityProxy.Concept.make(PublicIds.of(UUID.fromString(SNOMED_IDENTIFIER_PUBLIC_ID)));
+        return RxnormProxyRegistry.concept(SNOMED_IDENTIFIER_PUBLIC_ID);
     }
     public static EntityProxy.Concept getRxcuidConcept(){
-        return EntityProxy.Concept.make(PublicIds.of(UUID.fromString(RXCUID_IDENTIFIER_PUBLIC_ID)));
+        return RxnormProxyRegistry.concept(RXCUID_IDENTIFIER_PUBLIC_ID);
     }
     public static EntityProxy.Concept getVuidConcept(){
-        return EntityProxy.Concept.make(PublicIds.of(UUID.fromString(VU_IDENTIFIER_PUBLIC_ID)));
+        return RxnormProxyRegistry.concept(VU_IDENTIFIER_PUBLIC_ID);
     }
     public static EntityProxy.Concept getNdcIdentifierConcept(){
-        return EntityProxy.Concept.make(PublicIds.of(UUID.fromString(NDC_IDENTIFIER_PUBLIC_ID)));
+        return RxnormProxyRegistry.concept(NDC_IDENTIFIER_PUBLIC_ID);
     }
     public static EntityProxy.Concept getTallmanSynonymDescriptionConcept(){
-        return EntityProxy.Concept.make(PublicIds.of(UUID.fromString(TALLMAN_DESCRIPTION)));
+        return RxnormProxyRegistry.concept(TALLMAN_DESCRIPTION);
     }
     public static EntityProxy.Pattern getQualitativeDistinctionPattern(){
-        return EntityProxy.Pattern.make(PublicIds.of(UUID.fromString(QUALITATIVE_DISTINCTION_PATTERN)));
+        return RxnormProxyRegistry.pattern(QUALITATIVE_DISTINCTION_PATTERN);
     }
     public static EntityProxy.Pattern getQuantityPattern(){
-        return EntityProxy.Pattern.make(PublicIds.of(UUID.fromString(QUANTITY_PATTERN)));
+        return RxnormProxyRegistry.pattern(QUANTITY_PATTERN);
     }
     public static EntityProxy.Pattern getSchedulePattern(){
-        return EntityProxy.Pattern.make(PublicIds.of(UUID.fromString(SCHEDULE_PATTERN)));
+        return RxnormProxyRegistry.pattern(SCHEDULE_PATTERN);
     }
     public static EntityProxy.Pattern getHumanDrugPattern(){
-        return EntityProxy.Pattern.make(PublicIds.of(UUID.fromString(HUMAN_DRUG_PATTERN)));
+        return RxnormProxyRegistry.pattern(HUMAN_DRUG_PATTERN);
     }
     public static EntityProxy.Pattern getVetDrugPattern(){
-        return EntityProxy.Pattern.make(PublicIds.of(UUID.fromString(VET_DRUG_PATTERN)));
+        return RxnormProxyRegistry.pattern(VET_DRUG_PATTERN);
     }
     public static EntityProxy.Pattern getTallmanSynonymPattern(){
-        return EntityProxy.Pattern.make(PublicIds.of(UUID.fromString(TALLMAN_SYNONYM_PATTERN)));
+        return RxnormProxyRegistry.pattern(TALLMAN_SYNONYM_PATTERN);
+    }
+    public static EntityProxy.Concept getQualitativeDistinctionMeaning(){
+        return RxnormProxyRegistry.concept(QUALITATIVE_PATTERN_DISTINCTION_MEANING);
+    }
+    public static EntityProxy.Concept getQualitativeLanguageMeaning(){
+        return RxnormProxyRegistry.concept(QUALITATIVE_PATTERN_LANGUAGE_MEANING);
+    }
+    public static EntityProxy.Concept getQuantityDrugMeaning(){
+        return RxnormProxyRegistry.concept(QUANTITY_PATTERN_DRUG_MEANING);
+    }
+    public static EntityProxy.Concept getScheduleDrugMeaning(){
+        return RxnormProxyRegistry.concept(SCHEDULE_PATTERN_DRUG_MEANING);
+    }
+    public static EntityProxy.Concept getScheduleLanguageMeaning(){
+        return RxnormProxyRegistry.concept(SCHEDULE_PATTERN_LANGUAGE_MEANING);
+    }
+    public static EntityProxy.Concept getHumanDrugMeaning(){
+        return RxnormProxyRegistry.concept(HUMAN_DRUG_PATTERN_LANGUAGE_MEANING);
+    }
+    public static EntityProxy.Concept getVetDrugMeaning(){
+        return RxnormProxyRegistry.concept(VETERINARIAN_DRUG_PATTERN_LANGUAGE_MEANING);
+    }
+    public static EntityProxy.Concept getTallmanSynonymMeaning(){
+        return RxnormProxyRegistry.concept(TALLMAN_SYNONYM_PATTERN_LANGUAGE_MEANING);
     }
+    /**
+     * Rewrites the SNOMED CT and RxNorm URIs of an OWL expression as :[uuid] references, and normalizes
+     * the whitespace between the property and the value of DataHasValue expressions to one space.
+     * <p>
+     * The expression is tokenized in a single pass into a pre-sized StringBuilder. The UUID of each
+     * identifier is memoized per namespace, because the same SNOMED attributes and dose forms appear
+     * in thousands of axioms.
+     */
     public static String transformOwlString(UUID namespace, String owlString) {
-        // First, let's handle URIs in the entire string
-        Pattern uriPattern = Pattern.compile("<(http://[^>]+)>");
-        Matcher matcher = uriPattern.matcher(owlString);
-        StringBuffer result = new StringBuffer();
+        RxnormFlightRecorder.TransformOwlStringEvent event = new RxnormFlightRecorder.TransformOwlStringEvent();
+        event.begin();
+        String transformed = transformOwlStringUnrecorded(namespace, owlString);
+        event.end();
+        if (event.shouldCommit()) {
+            event.expressionSize = owlString.length();
+            event.transformedSize = transformed.length();
+            event.commit();
+        }
+        return transformed;
+    }
 
-        while (matcher.find()) {
-            String uri = matcher.group(1);
-            String replacement;
-            // Process the URI based on its format
-            if (uri.startsWith("http://snomed.info/id/")) {
-                String id = uri.substring("http://snomed.info/id/".length());
-                EntityProxy.Concept concept = makeConceptProxy(namespace, id);
-                replacement = ":[" + concept.publicId().asUuidArray()[0] + "]";
-            } else if (uri.startsWith("http://mor.nlm.nih.gov/RXNORM/")) {
-                // RxNorm ID
-                String id = uri.substring("http://mor.nlm.nih.gov/RXNORM/".length());
-                EntityProxy.Concept concept = makeConceptProxy(namespace, id);
-                replacement = ":[" + concept.publicId().asUuidArray()[0] + "]";
+    private static String transformOwlStringUnrecorded(UUID namespace, String owlString) {
+        Map<String, String> uuidStrings = UUID_STRINGS.computeIfAbsent(namespace, key -> new ConcurrentHashMap<>());
+        StringBuilder result = new StringBuilder(owlString.length() + (owlString.length() >> 3));
+        int length = owlString.length();
+        int i = 0;
+        while (i < length) {
+            char c = owlString.charAt(i);
+            if (c == 'D' && owlString.startsWith(DATA_HAS_VALUE, i)) {
+                int end = appendDataHasValue(namespace, uuidStrings, owlString, i, result);
+                if (end > 0) {
+                    i = end;
+                } else {
+                    result.append(DATA_HAS_VALUE);
+                    i += DATA_HAS_VALUE.length();
+                }
+            } else if (c == '<') {
+                int uriEnd = uriEnd(owlString, i);
+                if (uriEnd > 0) {
+                    appendUri(namespace, uuidStrings, owlString.substring(i + 1, uriEnd - 1), result);
+                    i = uriEnd;
+                } else {
+                    result.append(c);
+                    i++;
+                }
             } else {
-                // Unknown URI type, keep as is
-                replacement = "<" + uri + ">";
+                result.append(c);
+                i++;
             }
-            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
         }
-        matcher.appendTail(result);
+        return result.toString();
+    }
 
-        // handle the DataHasValue expressions
-        String partialResult = result.toString();
-        Pattern dataValuePattern = Pattern.compile("DataHasValue\\(:[\\[](.*?)[\\]]\\s+\"([^\"]*)\"\\^\\^xsd:([^\\)]+)\\)|DataHasValue\\(<(http://[^>]+)>\\s+\"([^\"]*)\"\\^\\^xsd:([^\\)]+)\\)");
-        matcher = dataValuePattern.matcher(partialResult);
-        result = new StringBuffer();
+    /**
+     * @return index after the closing '>' of an http URI starting with the '<' at start, or -1 if there is none
+     */
+    private static int uriEnd(String owlString, int start) {
+        if (!owlString.startsWith("<http://", start)) {
+            return -1;
+        }
+        int close = owlString.indexOf('>', start + "<http://".length());
+        return close > start + "<http://".length() ? close + 1 : -1;
+    }
 
-        while (matcher.find()) {
-            String replacement;
-            if (matcher.group(1) != null) {
-                // Already transformed URI
-                String conceptId = matcher.group(1);
-                String value = matcher.group(2);
-                String dataType = matcher.group(3);
-                replacement = "DataHasValue(:[" + conceptId + "] \"" + value + "\"^^xsd:" + dataType + ")";
-            } else {
-                // Original URI format
-                String uri = matcher.group(4);
-                String value = matcher.group(5);
-                String dataType = matcher.group(6);
+    private static void appendUri(UUID namespace, Map<String, String> uuidStrings, String uri, StringBuilder result) {
+        String id = null;
+        if (uri.startsWith(SNOMED_URI_PREFIX)) {
+            id = uri.substring(SNOMED_URI_PREFIX.length());
+        } else if (uri.startsWith(RXNORM_URI_PREFIX)) {
+            id = uri.substring(RXNORM_URI_PREFIX.length());
+        }
+        if (id == null) {
+            // Unknown URI type, keep as is
+            result.append('<').append(uri).append('>');
+        } else {
+            result.append(":[").append(uuidString(namespace, uuidStrings, id)).append(']');
+        }
+    }
 
-                if (uri.startsWith("http://snomed.info/id/")) {
-                    String id = uri.substring("http://snomed.info/id/".length());
-                    EntityProxy.Concept concept = makeConceptProxy(namespace, id);
-                    replacement = "DataHasValue(:[" + concept.publicId().asUuidArray()[0] + "] \"" +
-                            value + "\"^^xsd:" + dataType + ")";
-                } else {
-                    // Keep original format if URI type is unknown
-                    replacement = "DataHasValue(<" + uri + "> \"" + value + "\"^^xsd:" + dataType + ")";
-                }
-            }
-            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+    /**
+     * Appends DataHasValue(uri "value"^^xsd:type) starting at start, with its URI rewritten and one space before the value
+     *
+     * @return index after the expression, or -1 if no such expression starts at start
+     */
+    private static int appendDataHasValue(UUID namespace, Map<String, String> uuidStrings, String owlString, int start, StringBuilder result) {
+        int uriStart = start + DATA_HAS_VALUE.length();
+        int uriEnd = uriEnd(owlString, uriStart);
+        if (uriEnd < 0) {
+            return -1;
         }
-        matcher.appendTail(result);
+        int valueStart = uriEnd;
+        while (valueStart < owlString.length() && isWhitespace(owlString.charAt(valueStart))) {
+            valueStart++;
+        }
+        if (valueStart == uriEnd || valueStart >= owlString.length() || owlString.charAt(valueStart) != '"') {
+            return -1;
+        }
+        int valueEnd = owlString.indexOf('"', valueStart + 1);
+        if (valueEnd < 0 || !owlString.startsWith("^^xsd:", valueEnd + 1)) {
+            return -1;
+        }
+        int typeStart = valueEnd + 1 + "^^xsd:".length();
+        int typeEnd = owlString.indexOf(')', typeStart);
+        if (typeEnd <= typeStart) {
+            return -1;
+        }
+        result.append(DATA_HAS_VALUE);
+        appendUri(namespace, uuidStrings, owlString.substring(uriStart + 1, uriEnd - 1), result);
+        result.append(' ').append(owlString, valueStart, typeEnd + 1);
+        return typeEnd + 1;
+    }
 
-        return result.toString();
+    /**
+     * Whitespace as matched by \s in a regular expression
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static String uuidString(UUID namespace, Map<String, String> uuidStrings, String id) {
+        String uuidString = uuidStrings.get(id);
+        if (uuidString == null) {
+            uuidString = UuidT5Generator.get(namespace, id).toString();
+            if (uuidStrings.size() < MAX_CACHED_UUID_STRINGS) {
+                uuidStrings.put(id, uuidString);
+            }
+        }
+        return uuidString;
     }
 
     public static UUID generateUUID(UUID namespace, String id) {
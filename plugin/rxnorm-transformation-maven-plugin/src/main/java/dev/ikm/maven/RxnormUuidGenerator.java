@@ -0,0 +1,194 @@
+package dev.ikm.maven;
+
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Type 5 UUID generator for the identities of RxNorm concepts and semantics, producing the same UUIDs
+ * as {@link UuidT5Generator#get(UUID, String)}.
+ * <p>
+ * Each thread keeps a SHA-1 digest primed with the namespace, and every UUID starts from a clone of
+ * it rather than hashing the namespace again. Semantic identities are built from the concept UUID, a
+ * value and a suffix; these parts are hashed one after the other instead of being concatenated into
+ * a throwaway string first. {@link #forConcept(UUID)} primes a digest with the namespace and the
+ * concept UUID once, so the identities of all semantics of a concept only hash their value and suffix.
+ */
+public class RxnormUuidGenerator {
+    private static final int MAX_BUFFER_LENGTH = 1 << 16;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final UUID namespace;
+    private final ThreadLocal<MessageDigest> namespaceDigest;
+    private final ThreadLocal<byte[]> buffer = ThreadLocal.withInitial(() -> new byte[256]);
+
+    public RxnormUuidGenerator(UUID namespace) {
+        this.namespace = namespace;
+        this.namespaceDigest = ThreadLocal.withInitial(() -> {
+            MessageDigest digest = newSha1();
+            byte[] namespaceBytes = new byte[16];
+            putLong(namespaceBytes, 0, namespace.getMostSignificantBits());
+            putLong(namespaceBytes, 8, namespace.getLeastSignificantBits());
+            digest.update(namespaceBytes);
+            return digest;
+        });
+
+        String check = "RxnormUuidGenerator";
+        if (!get(check).equals(UuidT5Generator.get(namespace, check))) {
+            throw new IllegalStateException("Type 5 UUIDs differ from UuidT5Generator for namespace " + namespace);
+        }
+    }
+
+    public UUID getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * @return the same UUID as {@code UuidT5Generator.get(namespace, name)}
+     */
+    public UUID get(String name) {
+        MessageDigest digest = primedClone(namespaceDigest.get());
+        update(digest, name);
+        return toUuid(digest.digest());
+    }
+
+    /**
+     * @return the same UUID as {@code UuidT5Generator.get(namespace, value + suffix)}
+     */
+    public UUID get(String value, String suffix) {
+        MessageDigest digest = primedClone(namespaceDigest.get());
+        update(digest, value);
+        update(digest, suffix);
+        return toUuid(digest.digest());
+    }
+
+    /**
+     * @return the same UUID as {@code UuidT5Generator.get(namespace, conceptUuid + value + suffix)}
+     */
+    public UUID get(UUID conceptUuid, String value, String suffix) {
+        return forConcept(conceptUuid).get(value, suffix);
+    }
+
+    /**
+     * @param conceptUuid UUID of the concept the semantics refer to
+     * @return generator for the identities of the semantics of one concept
+     */
+    public ConceptUuids forConcept(UUID conceptUuid) {
+        MessageDigest digest = primedClone(namespaceDigest.get());
+        byte[] uuidBytes = buffer.get();
+        writeUuidString(conceptUuid, uuidBytes);
+        digest.update(uuidBytes, 0, 36);
+        return new ConceptUuids(digest);
+    }
+
+    /**
+     * Generates the UUIDs of the semantics of one concept from a digest primed with the namespace and the concept UUID.
+     * Not thread safe, use one per concept and thread.
+     */
+    public final class ConceptUuids {
+        private final MessageDigest conceptDigest;
+
+        private ConceptUuids(MessageDigest conceptDigest) {
+            this.conceptDigest = conceptDigest;
+        }
+
+        /**
+         * @return the same UUID as {@code UuidT5Generator.get(namespace, conceptUuid + value + suffix)}
+         */
+        public UUID get(String value, String suffix) {
+            MessageDigest digest = primedClone(conceptDigest);
+            update(digest, value);
+            update(digest, suffix);
+            return toUuid(digest.digest());
+        }
+    }
+
+    /**
+     * Hashes the UTF-8 bytes of the text. ASCII text is copied into a reused per-thread buffer,
+     * other or very long text is encoded by String.
+     */
+    private void update(MessageDigest digest, String text) {
+        int length = text.length();
+        if (length > MAX_BUFFER_LENGTH) {
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] bytes = buffer.get();
+        if (length > bytes.length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+            buffer.set(bytes);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                digest.update(text.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            bytes[i] = (byte) c;
+        }
+        digest.update(bytes, 0, length);
+    }
+
+    private static void writeUuidString(UUID uuid, byte[] bytes) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        writeHex(bytes, 0, msb >>> 32, 8);
+        bytes[8] = '-';
+        writeHex(bytes, 9, msb >>> 16, 4);
+        bytes[13] = '-';
+        writeHex(bytes, 14, msb, 4);
+        bytes[18] = '-';
+        writeHex(bytes, 19, lsb >>> 48, 4);
+        bytes[23] = '-';
+        writeHex(bytes, 24, lsb, 12);
+    }
+
+    private static void writeHex(byte[] bytes, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            bytes[offset + i] = (byte) HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static UUID toUuid(byte[] hash) {
+        hash[6] &= 0x0f;
+        hash[6] |= 0x50;
+        hash[8] &= 0x3f;
+        hash[8] |= (byte) 0x80;
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (hash[i] & 0xff);
+        }
+        for (int i = 8; i < 16; i++) {
+            lsb = (lsb << 8) | (hash[i] & 0xff);
+        }
+        return new UUID(msb, lsb);
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static MessageDigest primedClone(MessageDigest primed) {
+        try {
+            return (MessageDigest) primed.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-1 digest cannot be cloned", e);
+        }
+    }
+
+    private static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
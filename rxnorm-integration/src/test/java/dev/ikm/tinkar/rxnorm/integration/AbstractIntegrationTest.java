@@ -1,47 +1,38 @@
 package dev.ikm.tinkar.rxnorm.integration;
 
 import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormOwlSource;
+import dev.ikm.maven.RxnormParseMode;
+import dev.ikm.maven.RxnormParsedSnapshot;
 import dev.ikm.maven.RxnormUtility;
-import dev.ikm.tinkar.common.service.CachingService;
-import dev.ikm.tinkar.common.service.PrimitiveData;
-import dev.ikm.tinkar.common.service.ServiceKeys;
-import dev.ikm.tinkar.common.service.ServiceProperties;
-import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Base of the integration tests that compare the release with the datastore. The datastore is started and the
+ * release parsed once by {@link RxnormDatastoreExtension}, and shared by every subclass run in the JVM.
+ */
+@ExtendWith(RxnormDatastoreExtension.class)
 public abstract class AbstractIntegrationTest {
     Logger LOG = LoggerFactory.getLogger(AbstractIntegrationTest.class);
     static String namespaceString;
     static String rxnormOwlFileName;
     static long timeForStamp;
 
-    @AfterAll
-    public static void shutdown() {
-        PrimitiveData.stop();
-    }
-
     @BeforeAll
-    public static void setup() throws IOException {
-        CachingService.clearAll();
-        //Note. Dataset needed to be generated within repo, with command 'mvn clean install'
-        namespaceString = System.getProperty("origin.namespace"); // property set in pom.xml
-        File datastore = new File(System.getProperty("datastorePath")); // property set in pom.xml
-        ServiceProperties.set(ServiceKeys.DATA_STORE_ROOT, datastore);
-        PrimitiveData.selectControllerByName("Open SpinedArrayStore");
-        PrimitiveData.start();
-        rxnormOwlFileName = System.getProperty("source.zip"); // property set in pom.xml
-        timeForStamp = RxnormUtility.parseTimeFromFileName(rxnormOwlFileName);
+    public static void setup() {
+        RxnormDatastoreExtension.Fixture fixture = RxnormDatastoreExtension.fixture();
+        namespaceString = fixture.getNamespaceString();
+        rxnormOwlFileName = fixture.getRxnormOwlFileName();
+        timeForStamp = fixture.getTimeForStamp();
     }
 
     /**
@@ -53,49 +44,44 @@ public static void setup() throws IOException {
      * @throws IOException
      */
     protected int processOwlFile(String sourceFilePath, String errorFile) throws IOException {
-        int notFound = 0;
-        String owlContent = readFile(sourceFilePath);
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
-            // Process the OWL content to extract class declarations and annotations
-            List<RxnormData> rxnormConcepts = RxnormUtility.extractRxnormData(owlContent);
-            LOG.info("Found " + rxnormConcepts.size() + " class declarations in the OWL file");
-
-            // Compare concepts for each class
-            for (RxnormData rxnormConcept : rxnormConcepts) {
-                if (!assertOwlElement(rxnormConcept)) {
-                    notFound++;
-                    LOG.info("Element rxnormConcept NOT Found: " + rxnormConcept.toString());
-                    bw.write(rxnormConcept.toString());
-                    bw.newLine();
-                }
-            }
-        }
+        // Compare concepts for each class, read once for all test classes, on several threads
+        List<RxnormData> rxnormConcepts = rxnormConcepts(sourceFilePath);
+        RxnormParallelVerifier verifier = RxnormParallelVerifier.fromSystemProperty();
+        int conceptCount = rxnormConcepts.size();
+        int notFound = verifier.verify(rxnormConcepts, this::assertOwlElement, errorFile);
 
+        LOG.info("Found " + conceptCount + " class declarations in the OWL file");
         LOG.info("We found file: " + sourceFilePath);
         LOG.info("RxNormConcepts Not Found: " + notFound);
         return notFound;
     }
 
     /**
-     *
-     * @param fileName
-     * @return Content of file into a String
-     * @throws IOException
+     * @return the concepts of the shared fixture, or those of another source read from its parsed snapshot or OWL content
      */
-    private String readFile(String fileName) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
+    private static List<RxnormData> rxnormConcepts(String sourceFilePath) throws IOException {
+        if (sourceFilePath.equals(rxnormOwlFileName)) {
+            return RxnormDatastoreExtension.fixture().getRxnormConcepts();
+        }
+        try (Stream<RxnormData> rxnormConcepts = RxnormParsedSnapshot.streamRxnormData(RxnormOwlSource.of(new File(sourceFilePath)), RxnormParseMode.STREAMING, 0)) {
+            return rxnormConcepts.toList();
         }
-        return content.toString();
     }
 
     protected UUID conceptUuid(String id) {
         return RxnormUtility.generateUUID(UUID.fromString(namespaceString), id + "rxnorm");
     }
 
+    /**
+     * @return true if the semantics of the category of the concept are found in the datastore, all categories being
+     * checked in one walk of the concept's semantics shared by the test classes
+     */
+    protected boolean found(RxnormData rxnormData, RxnormSemanticVerifier.Category category) {
+        return !RxnormDatastoreExtension.fixture().notFound(rxnormData).contains(category);
+    }
+
+    /**
+     * @return true if the concept is found in the datastore. Called from several threads at once, so it must only read
+     */
     protected abstract boolean assertOwlElement(RxnormData rxnormData);
 }
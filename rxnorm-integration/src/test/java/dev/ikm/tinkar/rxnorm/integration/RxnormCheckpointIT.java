@@ -0,0 +1,170 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormCheckpoint;
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormParsedSnapshot;
+import dev.ikm.maven.RxnormReleaseDelta;
+import dev.ikm.maven.RxnormUtility;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a transformation checkpoint is only resumed for the inputs and datastore it was written for, not against
+ * a datastore created again at the same path, and that a resumed run skips exactly the concepts committed before it.
+ * This does not need the datastore.
+ */
+public class RxnormCheckpointIT {
+
+    /**
+     * Test that a checkpoint is read back for the same inputs and datastore.
+     *
+     * @result The committed concept count and completion written are read back.
+     */
+    @Test
+    public void testCheckpointRoundTrip() throws IOException {
+        File directory = Files.createTempDirectory(new File("target").toPath(), "checkpoint").toFile();
+        File file = new File(directory, "rxnorm" + RxnormCheckpoint.CHECKPOINT_SUFFIX);
+        byte[] sourceHash = RxnormParsedSnapshot.hash(new File(System.getProperty("source.zip"))); // property set in pom.xml
+        File datastore = new File(directory, "datastore");
+
+        RxnormCheckpoint checkpoint = RxnormCheckpoint.of(file, sourceHash, null, datastore);
+        assertEquals(0, checkpoint.committedConcepts(), "No checkpoint written yet");
+
+        checkpoint.write(1000, false);
+        RxnormCheckpoint restarted = RxnormCheckpoint.of(file, sourceHash, null, datastore);
+        assertEquals(1000, restarted.committedConcepts());
+        assertFalse(restarted.isComplete());
+
+        restarted.write(2500, true);
+        assertEquals(2500, checkpoint.committedConcepts());
+        assertTrue(checkpoint.isComplete());
+    }
+
+    /**
+     * Test that a checkpoint written for other inputs or another datastore is ignored.
+     *
+     * @result A run against another datastore, or in delta mode against a previous release, starts from the first concept.
+     */
+    @Test
+    public void testCheckpointForOtherRunIsIgnored() throws IOException {
+        File directory = Files.createTempDirectory(new File("target").toPath(), "checkpoint").toFile();
+        File file = new File(directory, "rxnorm" + RxnormCheckpoint.CHECKPOINT_SUFFIX);
+        byte[] sourceHash = RxnormParsedSnapshot.hash(new File(System.getProperty("source.zip"))); // property set in pom.xml
+        File datastore = new File(directory, "datastore");
+        RxnormCheckpoint.of(file, sourceHash, null, datastore).write(1000, false);
+
+        assertEquals(0, RxnormCheckpoint.of(file, sourceHash, null, new File(directory, "other")).committedConcepts());
+        assertEquals(0, RxnormCheckpoint.of(file, sourceHash, sourceHash, datastore).committedConcepts());
+        assertEquals(1000, RxnormCheckpoint.of(file, sourceHash, null, datastore).committedConcepts());
+    }
+
+    /**
+     * Test that a checkpoint is not resumed against a datastore deleted and created again at the same path,
+     * as a clean build does.
+     *
+     * @result The checkpoint of a complete transformation is ignored once the datastore directory is recreated,
+     * so the run starts from the first concept.
+     */
+    @Test
+    public void testCheckpointForRecreatedDatastoreIsIgnored() throws IOException {
+        File directory = Files.createTempDirectory(new File("target").toPath(), "checkpoint").toFile();
+        File file = new File(directory, "rxnorm" + RxnormCheckpoint.CHECKPOINT_SUFFIX);
+        byte[] sourceHash = RxnormParsedSnapshot.hash(new File(System.getProperty("source.zip"))); // property set in pom.xml
+        File datastore = new File(directory, "datastore");
+        Files.createDirectories(datastore.toPath());
+
+        RxnormCheckpoint.of(file, sourceHash, null, datastore).write(2500, true);
+        assertTrue(new File(datastore, RxnormCheckpoint.DATASTORE_ID_FILE_NAME).isFile(), "Datastore id not written");
+        assertTrue(RxnormCheckpoint.of(file, sourceHash, null, datastore).isComplete());
+
+        try (Stream<Path> paths = Files.walk(datastore.toPath())) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+        Files.createDirectories(datastore.toPath());
+
+        RxnormCheckpoint recreated = RxnormCheckpoint.of(file, sourceHash, null, datastore);
+        assertFalse(recreated.isComplete(), "Checkpoint resumed against a recreated datastore");
+        assertEquals(0, recreated.committedConcepts());
+    }
+
+    /**
+     * Test resuming an interrupted delta transformation.
+     *
+     * @result A run composing the delta against a release with every other concept dropped and some renamed is
+     * interrupted among the retired concepts, between two checkpoints. The resumed run, with a delta computed
+     * again as after a restart, skips exactly the concepts committed before the last checkpoint, and the committed
+     * and resumed concepts together are the concepts of an uninterrupted run, in order.
+     */
+    @Test
+    public void testResumeSkipsExactlyTheCommittedConcepts() throws IOException {
+        File directory = Files.createTempDirectory(new File("target").toPath(), "checkpoint").toFile();
+        File file = new File(directory, "rxnorm" + RxnormCheckpoint.CHECKPOINT_SUFFIX);
+        File source = new File(System.getProperty("source.zip")); // property set in pom.xml
+        byte[] sourceHash = RxnormParsedSnapshot.hash(source);
+        File datastore = new File(directory, "datastore");
+
+        List<RxnormData> previous;
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(source)) {
+            previous = streamed.toList();
+        }
+        List<RxnormData> release = new ArrayList<>();
+        for (int i = 0; i < previous.size(); i += 2) {
+            RxnormData concept = previous.get(i);
+            if (i % 6 == 0) {
+                RxnormData renamed = new RxnormData(concept.getUri());
+                renamed.setRxnormName(concept.getRxnormName() + " renamed");
+                release.add(renamed);
+            } else {
+                release.add(concept);
+            }
+        }
+        List<String> expected = ids(RxnormReleaseDelta.of(previous.iterator()).changes(release.iterator()));
+        assertTrue(expected.size() >= 100, "Release needs more concepts, the delta has " + expected.size());
+
+        // Interrupted among the retired concepts, after the last checkpoint
+        int checkpointInterval = expected.size() / 10;
+        int interruptedAt = expected.size() - checkpointInterval / 2;
+        List<String> committed = new ArrayList<>();
+        List<String> composed = new ArrayList<>();
+        RxnormCheckpoint checkpoint = RxnormCheckpoint.of(file, sourceHash, sourceHash, datastore);
+        Iterator<RxnormData> changes = RxnormReleaseDelta.of(previous.iterator()).changes(release.iterator());
+        while (changes.hasNext() && composed.size() < interruptedAt) {
+            composed.add(changes.next().getId());
+            if (composed.size() % checkpointInterval == 0) {
+                committed.addAll(composed.subList(committed.size(), composed.size()));
+                checkpoint.write(committed.size(), false);
+            }
+        }
+
+        RxnormCheckpoint restarted = RxnormCheckpoint.of(file, sourceHash, sourceHash, datastore);
+        assertEquals(committed.size(), restarted.committedConcepts(), "Checkpoint does not record the committed concepts");
+        Iterator<RxnormData> resumedChanges = RxnormReleaseDelta.of(previous.iterator()).changes(release.iterator());
+        assertEquals(committed.size(), RxnormCheckpoint.skip(resumedChanges, restarted.committedConcepts()));
+        List<String> resumed = ids(resumedChanges);
+
+        List<String> transformed = new ArrayList<>(committed);
+        transformed.addAll(resumed);
+        assertEquals(expected, transformed, "Resumed run does not continue right after the committed concepts");
+    }
+
+    private static List<String> ids(Iterator<RxnormData> concepts) {
+        List<String> ids = new ArrayList<>();
+        concepts.forEachRemaining(concept -> ids.add(concept.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,183 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormParseMode;
+import dev.ikm.maven.RxnormTransformationMojo;
+import dev.ikm.tinkar.common.service.CachingService;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import dev.ikm.tinkar.common.service.ServiceKeys;
+import dev.ikm.tinkar.common.service.ServiceProperties;
+import dev.ikm.tinkar.component.Component;
+import dev.ikm.tinkar.entity.Entity;
+import dev.ikm.tinkar.entity.EntityService;
+import dev.ikm.tinkar.entity.EntityVersion;
+import dev.ikm.tinkar.entity.SemanticEntity;
+import dev.ikm.tinkar.entity.SemanticEntityVersion;
+import dev.ikm.tinkar.entity.StampEntity;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that composing the release on several workers writes the same entities as composing it on one thread.
+ * <p>
+ * The release is transformed twice, serially and with {@link #PARALLEL_WORKERS} compose workers, each time into a
+ * new datastore, and the concepts and semantics of both are compared by public id, stamp and field values. The
+ * test starts and stops its own datastores, so it runs in its own failsafe execution, apart from the tests sharing
+ * the datastore of the pipeline, see pom.xml.
+ */
+public class RxnormComposeEquivalenceIT {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormComposeEquivalenceIT.class);
+    private static final int PARALLEL_WORKERS = 4;
+    private static final int MAX_REPORTED_DIFFERENCES = 1000;
+
+    /**
+     * Test that the parallel composer writes the same entities as the serial one.
+     *
+     * @result Every concept and semantic has the same public id, versions and field values in both datastores.
+     */
+    @Test
+    public void testParallelComposeMatchesSerialCompose() throws Exception {
+        String errorFile = "target/failsafe-reports/Rxnorm_compose_equivalence.txt";
+        File directory = new File("target/compose-equivalence");
+        Map<String, String> serial = transformAndDigest(new File(directory, "serial"), 1);
+        Map<String, String> parallel = transformAndDigest(new File(directory, "parallel"), PARALLEL_WORKERS);
+
+        List<String> differences = new ArrayList<>();
+        TreeSet<String> publicIds = new TreeSet<>(serial.keySet());
+        publicIds.addAll(parallel.keySet());
+        for (String publicId : publicIds) {
+            String serialDigest = serial.get(publicId);
+            String parallelDigest = parallel.get(publicId);
+            if (!Objects.equals(serialDigest, parallelDigest)) {
+                differences.add(publicId + "\t" + (serialDigest == null ? "only parallel" : parallelDigest == null ? "only serial" : "versions differ"));
+            }
+        }
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
+            for (String difference : differences.subList(0, Math.min(differences.size(), MAX_REPORTED_DIFFERENCES))) {
+                bw.write(difference);
+                bw.newLine();
+            }
+        }
+        LOG.info("Compared " + serial.size() + " serially composed and " + parallel.size() + " parallel composed entities, "
+                + differences.size() + " differ");
+
+        assertFalse(serial.isEmpty(), "No entities composed");
+        assertEquals(0, differences.size(), "Parallel compose differs from serial compose for " + differences.size()
+                + " entities. Details written to " + errorFile);
+    }
+
+    /**
+     * Transforms the release into a new datastore, then reopens it and digests its concepts and semantics
+     *
+     * @return digest of each concept and semantic by public id
+     */
+    private static Map<String, String> transformAndDigest(File datastore, int composeWorkers) throws Exception {
+        deleteRecursively(datastore);
+        RxnormTransformationMojo mojo = new RxnormTransformationMojo();
+        configure(mojo, "namespaceString", System.getProperty("origin.namespace")); // property set in pom.xml
+        configure(mojo, "rxnormOwl", new File(System.getProperty("source.zip"))); // property set in pom.xml
+        configure(mojo, "datastorePath", datastore.getPath());
+        configure(mojo, "dataOutputPath", datastore.getPath());
+        configure(mojo, "controllerName", "Open SpinedArrayStore");
+        configure(mojo, "parseMode", RxnormParseMode.STREAMING);
+        configure(mojo, "parsedSnapshot", true);
+        configure(mojo, "composeWorkers", composeWorkers);
+        configure(mojo, "sessionBatchSize", 1);
+        configure(mojo, "flightRecordingSettings", "default");
+        LOG.info("Transforming the release into " + datastore + " with " + composeWorkers + " compose workers");
+        mojo.execute();
+
+        CachingService.clearAll();
+        ServiceProperties.set(ServiceKeys.DATA_STORE_ROOT, datastore);
+        PrimitiveData.selectControllerByName("Open SpinedArrayStore");
+        PrimitiveData.start();
+        try {
+            Map<String, String> digests = new ConcurrentHashMap<>();
+            PrimitiveData.get().forEachConceptNid(nid -> digest(nid, digests));
+            PrimitiveData.get().forEachSemanticNid(nid -> digest(nid, digests));
+            return new TreeMap<>(digests);
+        } finally {
+            PrimitiveData.stop();
+        }
+    }
+
+    /**
+     * Describes the entity by its versions, each with its stamp and field values given by public id rather than
+     * by nid, as nids are allocated in a different order by each run, and puts the digest of the description
+     */
+    private static void digest(int nid, Map<String, String> digests) {
+        Entity<? extends EntityVersion> entity = EntityService.get().getEntityFast(nid);
+        List<String> versions = new ArrayList<>();
+        for (EntityVersion version : entity.versions()) {
+            StampEntity<?> stamp = version.stamp();
+            StringBuilder description = new StringBuilder()
+                    .append(stamp.state()).append('|').append(stamp.time())
+                    .append('|').append(PrimitiveData.publicId(stamp.authorNid()).idString())
+                    .append('|').append(PrimitiveData.publicId(stamp.moduleNid()).idString())
+                    .append('|').append(PrimitiveData.publicId(stamp.pathNid()).idString());
+            if (version instanceof SemanticEntityVersion semanticVersion) {
+                for (Object fieldValue : semanticVersion.fieldValues()) {
+                    description.append('|').append(fieldValue instanceof Component component ? component.publicId().idString() : fieldValue);
+                }
+            }
+            versions.add(description.toString());
+        }
+        StringBuilder description = new StringBuilder(entity.getClass().getSimpleName());
+        if (entity instanceof SemanticEntity<?> semantic) {
+            description.append('|').append(PrimitiveData.publicId(semantic.patternNid()).idString())
+                    .append('|').append(PrimitiveData.publicId(semantic.referencedComponentNid()).idString());
+        }
+        versions.sort(null);
+        versions.forEach(version -> description.append('\n').append(version));
+        digests.put(entity.publicId().idString(), sha256(description.toString()));
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sets a mojo parameter the way Maven would from the plugin configuration
+     */
+    private static void configure(RxnormTransformationMojo mojo, String parameter, Object value) throws ReflectiveOperationException {
+        Field field = RxnormTransformationMojo.class.getDeclaredField(parameter);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot delete " + file);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormComposePipeline;
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormSessionPool;
+import dev.ikm.tinkar.composer.Composer;
+import dev.ikm.tinkar.terms.State;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the compose pipeline commits every concept composed before a stage fails. The Composers are handed
+ * to a slow committer that only counts their concepts, so this does not need the datastore.
+ */
+public class RxnormComposePipelineIT {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormComposePipelineIT.class);
+    private static final int CONCEPTS = 20_000;
+    private static final int WORKERS = 4;
+    private static final int COMMIT_INTERVAL = 10;
+
+    private final AtomicInteger composed = new AtomicInteger();
+    private final AtomicInteger committed = new AtomicInteger();
+
+    /**
+     * Test a compose worker failing partway through the concepts while another worker is still composing.
+     *
+     * @result The failure is rethrown, and the concepts composed by every worker before it, including those
+     * handed over by the slow worker well after the failure, are all committed.
+     */
+    @Test
+    public void testComposeFailureCommitsComposedConcepts() {
+        int failAt = CONCEPTS / 2;
+        ExecutionException e = assertThrows(ExecutionException.class, () -> newPipeline().run(concepts(CONCEPTS, -1),
+                this::newWorkerSessions, composeConcept(failAt - 1, failAt)));
+
+        assertTrue(e.getCause() instanceof IllegalStateException, "Unexpected failure " + e.getCause());
+        assertCommittedAllComposed();
+    }
+
+    /**
+     * Test the parser failing partway through the concepts while a worker is still composing.
+     *
+     * @result The failure is rethrown, and the concepts composed before it are all committed.
+     */
+    @Test
+    public void testParseFailureCommitsComposedConcepts() {
+        int failAt = CONCEPTS / 2;
+        ExecutionException e = assertThrows(ExecutionException.class, () -> newPipeline().run(concepts(CONCEPTS, failAt),
+                this::newWorkerSessions, composeConcept(failAt - 100, -1)));
+
+        assertTrue(e.getCause() instanceof IllegalStateException, "Unexpected failure " + e.getCause());
+        assertCommittedAllComposed();
+    }
+
+    private void assertCommittedAllComposed() {
+        LOG.info("Composed " + composed.get() + " and committed " + committed.get() + " concepts before the failure");
+        assertTrue(composed.get() > 0, "No concept composed before the failure");
+        assertEquals(composed.get(), committed.get(), "Concepts composed before the failure were not committed");
+    }
+
+    /**
+     * @param slowCall call that takes half a second, so the worker making it hands over its Composer well
+     * after the failure has stopped the other stages
+     * @param failCall call that fails, or -1 to not fail
+     */
+    private BiConsumer<RxnormData, RxnormSessionPool> composeConcept(int slowCall, int failCall) {
+        AtomicInteger calls = new AtomicInteger();
+        return (concept, sessions) -> {
+            sessions.session(State.ACTIVE);
+            int call = calls.incrementAndGet();
+            if (call == slowCall) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(500));
+            }
+            if (call == failCall) {
+                throw new IllegalStateException("Injected compose failure");
+            }
+            composed.incrementAndGet();
+        };
+    }
+
+    /**
+     * A commit queue holding a single Composer, so the workers wait on the committer when the failure happens
+     */
+    private static RxnormComposePipeline newPipeline() {
+        return new RxnormComposePipeline(WORKERS, false, 64, 1, 0);
+    }
+
+    /**
+     * @return a session pool handing each Composer to a committer that takes a millisecond and counts its concepts
+     */
+    private RxnormSessionPool newWorkerSessions(int worker) {
+        return new RxnormSessionPool(() -> new Composer("Rxnorm Pipeline Test " + worker), 0L, null, null, null, 1)
+                .withCommitInterval(COMMIT_INTERVAL, 0)
+                .withCommitter((composer, concepts) -> {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    committed.addAndGet(concepts);
+                });
+    }
+
+    /**
+     * @param failAt number of concepts after which reading the next one fails, or -1 to not fail
+     */
+    private static Iterator<RxnormData> concepts(int count, int failAt) {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public RxnormData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (next == failAt) {
+                    throw new IllegalStateException("Injected parse failure");
+                }
+                return new RxnormData("http://mor.nlm.nih.gov/RXNORM/" + next++);
+            }
+        };
+    }
+}
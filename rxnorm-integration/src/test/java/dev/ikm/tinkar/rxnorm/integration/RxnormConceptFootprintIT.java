@@ -0,0 +1,139 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormUtility;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the heap retained per parsed concept of the release, in the compact RxnormData layout and in the layout
+ * it replaced. The retained heap is taken as the heap in use after a GC, so the test runs in a JVM of its own, apart
+ * from the tests holding the parsed release and the datastore, see pom.xml. This does not need the datastore.
+ */
+public class RxnormConceptFootprintIT {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormConceptFootprintIT.class);
+
+    /**
+     * Measure the heap retained by the parsed concepts of the release before and after the compact layout.
+     *
+     * @result Writes the retained heap per concept of both layouts to a report. The compact layout retains less.
+     */
+    @Test
+    public void testParsedConceptHeapFootprint() throws IOException {
+        String reportFile = "target/failsafe-reports/Rxnorm_concept_heap_footprint.txt";
+        File source = new File(System.getProperty("source.zip")); // property set in pom.xml
+
+        // Parse once beforehand, so the shared vocabulary values and loaded classes are not counted
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(source)) {
+            assertTrue(streamed.count() > 0, "No concepts parsed");
+        }
+
+        long heapBefore = usedHeapAfterGc();
+        List<RxnormData> concepts;
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(source)) {
+            concepts = streamed.toList();
+        }
+        long compactBytes = usedHeapAfterGc() - heapBefore;
+        int conceptCount = concepts.size();
+
+        List<BaselineRxnormData> baselineConcepts = new ArrayList<>(conceptCount);
+        for (RxnormData concept : concepts) {
+            baselineConcepts.add(new BaselineRxnormData(concept));
+        }
+        concepts = null;
+        long baselineBytes = usedHeapAfterGc() - heapBefore;
+
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(reportFile))) {
+            bw.write("layout\tconcepts\tretainedBytes\tbytesPerConcept");
+            bw.newLine();
+            bw.write("baseline\t" + conceptCount + "\t" + baselineBytes + "\t" + baselineBytes / conceptCount);
+            bw.newLine();
+            bw.write("compact\t" + conceptCount + "\t" + compactBytes + "\t" + compactBytes / conceptCount);
+            bw.newLine();
+        }
+        LOG.info("Parsed " + conceptCount + " concepts retaining about " + baselineBytes / conceptCount
+                + " bytes each in the baseline layout and " + compactBytes / conceptCount + " bytes each in the compact layout");
+
+        assertFalse(baselineConcepts.isEmpty(), "No concepts parsed");
+        assertTrue(compactBytes < baselineBytes, "Compact layout retains " + compactBytes
+                + " bytes, not less than the " + baselineBytes + " bytes of the baseline layout");
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The fields of RxnormData before the compact layout: a string of its own for every value found in the class
+     * block, the empty string otherwise, and the NDC codes and Tallman synonyms in collections allocated for every concept
+     */
+    @SuppressWarnings("unused") // only held for the heap they retain
+    private static final class BaselineRxnormData {
+        private final String id;
+        private final String uri;
+        private final String rxnormName;
+        private final String rxnormSynonym;
+        private final String prescribableSynonym;
+        private final String snomedCtId;
+        private final String rxCuiId;
+        private final String vuidId;
+        private final List<String> ndcCodes = new ArrayList<>();
+        private final Map<String, String> ndcCodesWithEndDates = new HashMap<>();
+        private final String qualitativeDistinction;
+        private final String quantity;
+        private final String schedule;
+        private final String humanDrug;
+        private final String vetDrug;
+        private final List<String> tallmanSynonyms = new ArrayList<>();
+        private final String equivalentClassesStr;
+
+        private BaselineRxnormData(RxnormData concept) {
+            id = copy(concept.getId());
+            uri = copy(concept.getUri());
+            rxnormName = copy(concept.getRxnormName());
+            rxnormSynonym = copy(concept.getRxnormSynonym());
+            prescribableSynonym = copy(concept.getPrescribableSynonym());
+            snomedCtId = copy(concept.getSnomedCtId());
+            rxCuiId = copy(concept.getRxCuiId());
+            vuidId = copy(concept.getVuidId());
+            List<String> codes = concept.getNdcCodes();
+            for (int i = 0; i < concept.ndcCodeCount(); i++) {
+                String ndcCode = copy(codes.get(i));
+                ndcCodes.add(ndcCode);
+                ndcCodesWithEndDates.put(ndcCode, copy(concept.getNdcEndDate(i)));
+            }
+            qualitativeDistinction = copy(concept.getQualitativeDistinction());
+            quantity = copy(concept.getQuantity());
+            schedule = copy(concept.getSchedule());
+            humanDrug = copy(concept.getHumanDrug());
+            vetDrug = copy(concept.getVetDrug());
+            concept.getTallmanSynonyms().forEach(synonym -> tallmanSynonyms.add(copy(synonym)));
+            equivalentClassesStr = copy(concept.getEquivalentClassesStr());
+        }
+
+        /**
+         * @return a string with characters of its own, as extracted from the class block, or the shared empty string
+         */
+        private static String copy(String value) {
+            return value == null || value.isEmpty() ? value : new String(value.toCharArray());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormOwlSource;
+import dev.ikm.maven.RxnormParseMode;
+import dev.ikm.maven.RxnormParsedSnapshot;
+import dev.ikm.maven.RxnormProxyRegistry;
+import dev.ikm.maven.RxnormUtility;
+import dev.ikm.tinkar.common.service.CachingService;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import dev.ikm.tinkar.common.service.ServiceKeys;
+import dev.ikm.tinkar.common.service.ServiceProperties;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Starts the datastore and parses the RxNorm release once for every integration test class run in the JVM.
+ * <p>
+ * The fixture is kept in the root extension context store, so the test classes share it and it is closed,
+ * stopping the datastore, only after the last of them has run. Failsafe must reuse its fork for the test
+ * classes to share the JVM, see reuseForks in pom.xml.
+ */
+public class RxnormDatastoreExtension implements BeforeAllCallback {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormDatastoreExtension.class);
+
+    private static Fixture fixture;
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        fixture = context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL)
+                .getOrComputeIfAbsent(Fixture.class, key -> new Fixture(), Fixture.class);
+    }
+
+    /**
+     * @return the fixture shared by the test classes, started by the extension before the first of them
+     */
+    public static Fixture fixture() {
+        if (fixture == null) {
+            throw new IllegalStateException("Test class is not extended with " + RxnormDatastoreExtension.class.getSimpleName());
+        }
+        return fixture;
+    }
+
+    /**
+     * The started datastore and the concepts of the release, closed with the root extension context
+     */
+    public static final class Fixture implements ExtensionContext.Store.CloseableResource {
+        private final String namespaceString;
+        private final String rxnormOwlFileName;
+        private final long timeForStamp;
+        private final List<RxnormData> rxnormConcepts;
+        private RxnormSemanticVerifier semanticVerifier;
+        private volatile Map<RxnormData, EnumSet<RxnormSemanticVerifier.Category>> notFound;
+
+        private Fixture() {
+            CachingService.clearAll();
+            //Note. Dataset needed to be generated within repo, with command 'mvn clean install'
+            namespaceString = System.getProperty("origin.namespace"); // property set in pom.xml
+            File datastore = new File(System.getProperty("datastorePath")); // property set in pom.xml
+            ServiceProperties.set(ServiceKeys.DATA_STORE_ROOT, datastore);
+            PrimitiveData.selectControllerByName("Open SpinedArrayStore");
+            PrimitiveData.start();
+            rxnormOwlFileName = System.getProperty("source.zip"); // property set in pom.xml, either the OWL file or a zip containing it
+            try {
+                RxnormOwlSource owlSource = RxnormOwlSource.of(new File(rxnormOwlFileName));
+                timeForStamp = RxnormUtility.parseTimeFromFileName(owlSource.getOwlFileName());
+                // Load the concepts from the parsed snapshot written by the transformation, or parse the OWL content if it is out of date
+                try (Stream<RxnormData> concepts = RxnormParsedSnapshot.streamRxnormData(owlSource, RxnormParseMode.STREAMING, 0)) {
+                    rxnormConcepts = concepts.toList();
+                }
+            } catch (IOException e) {
+                PrimitiveData.stop();
+                throw new UncheckedIOException(e);
+            }
+            LOG.info("Datastore started and " + rxnormConcepts.size() + " concepts read for the integration tests");
+        }
+
+        public String getNamespaceString() {
+            return namespaceString;
+        }
+
+        public String getRxnormOwlFileName() {
+            return rxnormOwlFileName;
+        }
+
+        public long getTimeForStamp() {
+            return timeForStamp;
+        }
+
+        /**
+         * @return the concepts of the release, in file order
+         */
+        public List<RxnormData> getRxnormConcepts() {
+            return rxnormConcepts;
+        }
+
+        /**
+         * @return the categories of semantics of the concept not found in the datastore, checked for every concept
+         * of the release in a single walk of its semantics the first time it is called
+         */
+        public EnumSet<RxnormSemanticVerifier.Category> notFound(RxnormData rxnormData) {
+            Map<RxnormData, EnumSet<RxnormSemanticVerifier.Category>> verified = notFound;
+            if (verified == null) {
+                verified = verifyAll();
+            }
+            EnumSet<RxnormSemanticVerifier.Category> categories = verified.get(rxnormData);
+            if (categories == null) {
+                // Not a concept of the shared release, check it on its own
+                return semanticVerifier().notFound(rxnormData);
+            }
+            return categories;
+        }
+
+        private synchronized Map<RxnormData, EnumSet<RxnormSemanticVerifier.Category>> verifyAll() {
+            if (notFound == null) {
+                RxnormSemanticVerifier verifier = semanticVerifier();
+                boolean join = "join".equalsIgnoreCase(System.getProperty("verify.mode")); // property set in pom.xml
+                // The index is only needed for the walk, and released with it
+                RxnormSemanticIndex semantics = join ? semanticIndex() : null;
+                LOG.info("Verifying " + rxnormConcepts.size() + " concepts " + (join ? "joined with the semantics of each pattern" : "by looking up their semantics"));
+                List<EnumSet<RxnormSemanticVerifier.Category>> results = RxnormParallelVerifier.fromSystemProperty()
+                        .map(rxnormConcepts, join ? rxnormData -> verifier.notFound(rxnormData, semantics) : verifier::notFound);
+                Map<RxnormData, EnumSet<RxnormSemanticVerifier.Category>> verified = new IdentityHashMap<>(rxnormConcepts.size());
+                for (int index = 0; index < rxnormConcepts.size(); index++) {
+                    verified.put(rxnormConcepts.get(index), results.get(index));
+                }
+                notFound = verified;
+            }
+            return notFound;
+        }
+
+        /**
+         * @return the verifier of the semantics of the release's concepts
+         */
+        public synchronized RxnormSemanticVerifier semanticVerifier() {
+            if (semanticVerifier == null) {
+                semanticVerifier = new RxnormSemanticVerifier(UUID.fromString(namespaceString), timeForStamp);
+            }
+            return semanticVerifier;
+        }
+
+        /**
+         * @return the semantics in the RxNorm module of the patterns the verifier checks, read with a pass of each
+         * pattern on every call and not kept by the fixture
+         */
+        public RxnormSemanticIndex semanticIndex() {
+            return RxnormSemanticIndex.of(RxnormProxyRegistry.concept(RxnormUtility.RXNORM_MODULE).nid(), semanticVerifier().patternNids());
+        }
+
+        @Override
+        public void close() {
+            PrimitiveData.stop();
+        }
+    }
+}
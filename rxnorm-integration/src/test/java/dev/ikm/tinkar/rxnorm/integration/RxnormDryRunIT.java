@@ -0,0 +1,68 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormDryRunMode;
+import dev.ikm.maven.RxnormParseMode;
+import dev.ikm.maven.RxnormTransformationMojo;
+import dev.ikm.tinkar.common.service.DataServiceController;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the datastore controller of the COMPOSE dry run can be selected by its default name, and that the PARSE
+ * dry run fails the build when the OWL file cannot be parsed. This does not start the datastore.
+ */
+public class RxnormDryRunIT {
+
+    /**
+     * Test that the default dry run controller name resolves to a registered controller.
+     *
+     * @result The ephemeral store controller registered by the plugin is found under the default dryRunControllerName.
+     */
+    @Test
+    public void testDryRunControllerResolvesByName() {
+        List<DataServiceController> controllers = PrimitiveData.getControllerOptions();
+        assertTrue(controllers.stream().anyMatch(controller -> RxnormDryRunMode.EPHEMERAL_CONTROLLER_NAME.equals(controller.controllerName())),
+                "No datastore controller named " + RxnormDryRunMode.EPHEMERAL_CONTROLLER_NAME + " among "
+                        + controllers.stream().map(DataServiceController::controllerName).toList());
+    }
+
+    /**
+     * Test the PARSE dry run on the release and on a missing OWL file.
+     *
+     * @result The release is parsed without error, and a missing OWL file fails the run with a MojoExecutionException.
+     */
+    @Test
+    public void testParseDryRunFailsOnUnreadableOwl() throws ReflectiveOperationException {
+        assertDoesNotThrow(() -> parseDryRun(new File(System.getProperty("source.zip"))).execute()); // property set in pom.xml
+        assertThrows(MojoExecutionException.class, () -> parseDryRun(new File("target/dry-run/missing.owl")).execute());
+    }
+
+    private static RxnormTransformationMojo parseDryRun(File rxnormOwl) throws ReflectiveOperationException {
+        RxnormTransformationMojo mojo = new RxnormTransformationMojo();
+        configure(mojo, "namespaceString", System.getProperty("origin.namespace")); // property set in pom.xml
+        configure(mojo, "rxnormOwl", rxnormOwl);
+        configure(mojo, "datastorePath", "target/dry-run/datastore");
+        configure(mojo, "dataOutputPath", "target/dry-run");
+        configure(mojo, "parseMode", RxnormParseMode.STREAMING);
+        configure(mojo, "dryRun", RxnormDryRunMode.PARSE);
+        return mojo;
+    }
+
+    /**
+     * Sets a mojo parameter the way Maven would from the plugin configuration
+     */
+    private static void configure(RxnormTransformationMojo mojo, String parameter, Object value) throws ReflectiveOperationException {
+        Field field = RxnormTransformationMojo.class.getDeclaredField(parameter);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+}
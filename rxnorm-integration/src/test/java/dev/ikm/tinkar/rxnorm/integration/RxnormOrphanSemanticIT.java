@@ -0,0 +1,63 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormData;
+import dev.ikm.tinkar.common.service.PrimitiveData;
+import dev.ikm.tinkar.entity.SemanticEntity;
+import dev.ikm.tinkar.entity.SemanticEntityVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reports the semantics in the RxNorm module that reference no concept of the release. The report is informational,
+ * as the starter set may also describe its own concepts in the RxNorm module.
+ */
+@ExtendWith(RxnormDatastoreExtension.class)
+public class RxnormOrphanSemanticIT {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormOrphanSemanticIT.class);
+
+    /**
+     * Test for orphan semantics.
+     *
+     * @result Reads the semantics of each checked pattern once, joins them with the concepts of the release and writes those referencing no concept.
+     */
+    @Test
+    public void testReportOrphanSemantics() throws IOException {
+        String errorFile = "target/failsafe-reports/Rxnorm_Orphan_semantics.txt";
+        RxnormDatastoreExtension.Fixture fixture = RxnormDatastoreExtension.fixture();
+        RxnormSemanticVerifier verifier = fixture.semanticVerifier();
+
+        Set<Integer> conceptNids = new HashSet<>();
+        for (RxnormData rxnormData : fixture.getRxnormConcepts()) {
+            if (rxnormData.getId() != null) {
+                conceptNids.add(verifier.conceptNid(rxnormData));
+            }
+        }
+        RxnormSemanticIndex semanticIndex = fixture.semanticIndex();
+        List<SemanticEntity<SemanticEntityVersion>> orphans = semanticIndex.orphans(conceptNids::contains);
+
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
+            for (SemanticEntity<SemanticEntityVersion> orphan : orphans) {
+                bw.write(orphan.publicId().idString() + "\t" + PrimitiveData.text(orphan.patternNid())
+                        + "\t" + PrimitiveData.publicId(orphan.referencedComponentNid()).idString());
+                bw.newLine();
+            }
+        }
+        if (!orphans.isEmpty()) {
+            LOG.warn("Found " + orphans.size() + " Rxnorm semantics without a concept in the release. Details written to " + errorFile);
+        }
+        LOG.info("Found " + orphans.size() + " orphans among " + semanticIndex.getSemanticCount() + " semantics");
+
+        assertTrue(semanticIndex.getSemanticCount() > 0, "No Rxnorm semantics found in the datastore");
+    }
+}
@@ -0,0 +1,429 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormAnnotationTokenizer;
+import dev.ikm.maven.RxnormClassBlockReader;
+import dev.ikm.maven.RxnormConceptColumns;
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormOwlSource;
+import dev.ikm.maven.RxnormParallelOwlParser;
+import dev.ikm.maven.RxnormParseMode;
+import dev.ikm.maven.RxnormParsedSnapshot;
+import dev.ikm.maven.RxnormUtility;
+import dev.ikm.tinkar.terms.EntityProxy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Golden tests for the OWL parser, run against the full RxNorm release. These do not need the datastore.
+ */
+public class RxnormOwlParserIT {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormOwlParserIT.class);
+    static String rxnormOwlFileName;
+
+    @BeforeAll
+    public static void setup() {
+        rxnormOwlFileName = System.getProperty("source.zip"); // property set in pom.xml, either the OWL file or a zip containing it
+    }
+
+    /**
+     * Test the single-pass annotation tokenizer against the regular expression extraction it replaced.
+     *
+     * @result Reads every class block and compares the extracted annotations and class URI of both implementations.
+     */
+    @Test
+    public void testAnnotationTokenizerMatchesRegexExtraction() throws IOException {
+        String errorFile = "target/failsafe-reports/Rxnorm_Annotation_mismatches.txt";
+        int blockCount = 0;
+        int mismatches = 0;
+        try (RxnormClassBlockReader blockReader = new RxnormClassBlockReader(RxnormOwlSource.of(new File(rxnormOwlFileName)).openReader());
+             BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
+            while (blockReader.hasNext()) {
+                String block = blockReader.next();
+                blockCount++;
+
+                String expectedUri = regexClassUri(block);
+                RxnormData expected = new RxnormData(String.valueOf(expectedUri));
+                regexExtractAnnotations(block, expected);
+
+                String actualUri = RxnormAnnotationTokenizer.classUri(block);
+                RxnormData actual = new RxnormData(String.valueOf(actualUri));
+                RxnormAnnotationTokenizer.tokenize(block, actual);
+
+                String expectedDescription = describe(expectedUri, expected);
+                String actualDescription = describe(actualUri, actual);
+                if (!expectedDescription.equals(actualDescription)) {
+                    mismatches++;
+                    bw.write("expected: " + expectedDescription);
+                    bw.newLine();
+                    bw.write("actual:   " + actualDescription);
+                    bw.newLine();
+                }
+            }
+        }
+
+        LOG.info("Compared " + blockCount + " class blocks, mismatches: " + mismatches);
+        assertEquals(0, mismatches, "Tokenizer differs from regex extraction for " + mismatches + " class blocks. Details written to " + errorFile);
+    }
+
+    /**
+     * Test the memory-mapped parser against the streaming parser.
+     *
+     * @result Parses the file in both modes and compares every RxnormData, in file order.
+     */
+    @Test
+    public void testMemoryMappedParserMatchesStreamingParser() throws IOException {
+        assumeFalse(RxnormOwlSource.of(new File(rxnormOwlFileName)).isZipped(), "Memory mapping needs an unzipped OWL file");
+        String errorFile = "target/failsafe-reports/Rxnorm_MemoryMapped_mismatches.txt";
+        int conceptCount = 0;
+        int mismatches = 0;
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(new File(rxnormOwlFileName), RxnormParseMode.STREAMING);
+             Stream<RxnormData> mapped = RxnormUtility.streamRxnormData(new File(rxnormOwlFileName), RxnormParseMode.MEMORY_MAPPED);
+             BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
+            Iterator<RxnormData> streamedIterator = streamed.iterator();
+            Iterator<RxnormData> mappedIterator = mapped.iterator();
+            while (streamedIterator.hasNext() || mappedIterator.hasNext()) {
+                String expectedDescription = streamedIterator.hasNext() ? describe(streamedIterator.next()) : "<missing>";
+                String actualDescription = mappedIterator.hasNext() ? describe(mappedIterator.next()) : "<missing>";
+                conceptCount++;
+                if (!expectedDescription.equals(actualDescription)) {
+                    mismatches++;
+                    bw.write("expected: " + expectedDescription);
+                    bw.newLine();
+                    bw.write("actual:   " + actualDescription);
+                    bw.newLine();
+                }
+            }
+        }
+
+        LOG.info("Compared " + conceptCount + " concepts, mismatches: " + mismatches);
+        assertEquals(0, mismatches, "Memory-mapped parser differs from streaming parser for " + mismatches + " concepts. Details written to " + errorFile);
+    }
+
+    /**
+     * Test the parallel parser at 1, 4, 8 and 16 threads.
+     *
+     * @result Checks that every thread count returns the streaming parser's output in file order, and writes a speedup report.
+     */
+    @Test
+    public void testParallelParserSpeedup() throws IOException {
+        assumeFalse(RxnormOwlSource.of(new File(rxnormOwlFileName)).isZipped(), "Parallel parsing needs an unzipped OWL file");
+        String reportFile = "target/failsafe-reports/Rxnorm_parallel_parse_speedup.txt";
+        File owlFile = new File(rxnormOwlFileName);
+        List<String> expected;
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(owlFile, RxnormParseMode.STREAMING)) {
+            expected = streamed.map(RxnormOwlParserIT::describe).toList();
+        }
+
+        // Warm up the parser so the single thread baseline is not charged for JIT compilation
+        RxnormParallelOwlParser.parse(owlFile, 0);
+
+        int mismatches = 0;
+        double baselineSeconds = 0;
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(reportFile))) {
+            bw.write("threads\tseconds\tspeedup\tconcepts");
+            bw.newLine();
+            for (int threads : new int[]{1, 4, 8, 16}) {
+                long start = System.nanoTime();
+                List<RxnormData> parsed = RxnormParallelOwlParser.parse(owlFile, threads);
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                if (threads == 1) {
+                    baselineSeconds = seconds;
+                }
+
+                List<String> actual = parsed.stream().map(RxnormOwlParserIT::describe).toList();
+                if (!expected.equals(actual)) {
+                    mismatches++;
+                    LOG.error("Parallel parse with " + threads + " threads differs from the streaming parse");
+                }
+
+                String line = String.format("%d\t%.3f\t%.2f\t%d", threads, seconds, baselineSeconds / seconds, parsed.size());
+                LOG.info("Parallel parse: " + line);
+                bw.write(line);
+                bw.newLine();
+            }
+        }
+
+        assertEquals(0, mismatches, "Parallel parser output differs from streaming parser for " + mismatches + " thread counts. Report written to " + reportFile);
+    }
+
+    /**
+     * Test the parsed snapshot, written on the first parse and loaded on later ones.
+     *
+     * @result Checks that the written and the loaded snapshot both match the streaming parser, and that a snapshot of other content or of another parser version is rewritten.
+     */
+    @Test
+    public void testParsedSnapshotMatchesStreamingParser() throws IOException {
+        RxnormOwlSource owlSource = RxnormOwlSource.of(new File(rxnormOwlFileName));
+        File snapshotFile = new File("target/failsafe-reports/Rxnorm_parsed.snapshot");
+        snapshotFile.delete();
+        List<String> expected;
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(owlSource)) {
+            expected = streamed.map(RxnormOwlParserIT::describe).toList();
+        }
+
+        byte[] sourceHash = RxnormParsedSnapshot.hash(owlSource.getFile());
+        assertEquals(expected, snapshotDescriptions(owlSource, snapshotFile), "Parse writing the snapshot differs from the streaming parser");
+        assertTrue(RxnormParsedSnapshot.isCurrent(snapshotFile, sourceHash), "Snapshot not written");
+        assertEquals(expected, snapshotDescriptions(owlSource, snapshotFile), "Loaded snapshot differs from the streaming parser");
+
+        // A snapshot taken from other content must be parsed again and rewritten
+        byte[] otherHash = sourceHash.clone();
+        otherHash[0]++;
+        try (RandomAccessFile snapshot = new RandomAccessFile(snapshotFile, "rw")) {
+            snapshot.seek(Integer.BYTES * 3);
+            snapshot.write(otherHash);
+        }
+        assertFalse(RxnormParsedSnapshot.isCurrent(snapshotFile, sourceHash), "Snapshot of other content taken as current");
+        assertEquals(expected, snapshotDescriptions(owlSource, snapshotFile), "Parse rewriting the snapshot differs from the streaming parser");
+        assertTrue(RxnormParsedSnapshot.isCurrent(snapshotFile, sourceHash), "Snapshot not rewritten");
+
+        // A snapshot written by another parser version must not be read, and is parsed again and rewritten
+        try (RandomAccessFile snapshot = new RandomAccessFile(snapshotFile, "rw")) {
+            snapshot.seek(Integer.BYTES * 2);
+            snapshot.writeInt(RxnormParsedSnapshot.PARSER_VERSION + 1);
+        }
+        assertFalse(RxnormParsedSnapshot.isCurrent(snapshotFile, sourceHash), "Snapshot of another parser version taken as current");
+        assertEquals(-1, RxnormParsedSnapshot.conceptCount(snapshotFile), "Concept count read from a snapshot of another parser version");
+        assertThrows(IOException.class, () -> RxnormParsedSnapshot.read(snapshotFile).close(), "Snapshot of another parser version read");
+        assertEquals(expected, snapshotDescriptions(owlSource, snapshotFile), "Parse rewriting the snapshot differs from the streaming parser");
+        assertTrue(RxnormParsedSnapshot.isCurrent(snapshotFile, sourceHash), "Snapshot of another parser version not rewritten");
+    }
+
+    /**
+     * Test the columnar store of the parsed release.
+     *
+     * @result Checks that every row rebuilds the parsed RxnormData, and that column scans agree with the parsed concepts.
+     */
+    @Test
+    public void testConceptColumnsMatchParsedConcepts() throws IOException {
+        List<RxnormData> concepts;
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(new File(rxnormOwlFileName))) {
+            concepts = streamed.toList();
+        }
+        RxnormConceptColumns columns = RxnormConceptColumns.of(concepts.iterator());
+
+        assertEquals(concepts.size(), columns.size(), "Row count differs from the parsed concept count");
+        assertEquals(concepts.stream().map(RxnormOwlParserIT::describe).toList(),
+                columns.stream().map(RxnormOwlParserIT::describe).toList(), "Rows differ from the parsed concepts");
+
+        int[] vuidRows = {0};
+        columns.column(RxnormConceptColumns.Attribute.VUID_ID).forEachNonEmpty(row -> vuidRows[0]++);
+        assertEquals(concepts.stream().filter(concept -> !concept.getVuidId().isEmpty()).count(), vuidRows[0], "VUID column scan differs");
+        assertEquals(concepts.stream().mapToInt(concept -> concept.getTallmanSynonyms().size()).sum(),
+                columns.tallmanSynonyms().values().size(), "Tallman synonym column differs");
+    }
+
+    /**
+     * Test the single pass OWL expression transform against the regular expression transform it replaced.
+     *
+     * @result Transforms the EquivalentClasses expression of every concept with both implementations and compares the results.
+     */
+    @Test
+    public void testTransformOwlStringMatchesRegexTransform() throws IOException {
+        String errorFile = "target/failsafe-reports/Rxnorm_OwlTransform_mismatches.txt";
+        UUID namespace = UUID.fromString(System.getProperty("origin.namespace")); // property set in pom.xml
+        int expressionCount = 0;
+        int mismatches = 0;
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(new File(rxnormOwlFileName));
+             BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
+            Iterator<RxnormData> iterator = streamed.iterator();
+            while (iterator.hasNext()) {
+                String owlString = iterator.next().getEquivalentClassesStr();
+                expressionCount++;
+                String expected = regexTransformOwlString(namespace, owlString);
+                String actual = RxnormUtility.transformOwlString(namespace, owlString);
+                if (!expected.equals(actual)) {
+                    mismatches++;
+                    bw.write("expected: " + expected);
+                    bw.newLine();
+                    bw.write("actual:   " + actual);
+                    bw.newLine();
+                }
+            }
+        }
+
+        LOG.info("Compared " + expressionCount + " OWL expressions, mismatches: " + mismatches);
+        assertEquals(0, mismatches, "Single pass transform differs from regex transform for " + mismatches + " expressions. Details written to " + errorFile);
+    }
+
+    private static List<String> snapshotDescriptions(RxnormOwlSource owlSource, File snapshotFile) throws IOException {
+        try (Stream<RxnormData> concepts = RxnormParsedSnapshot.streamRxnormData(owlSource, snapshotFile, RxnormParseMode.STREAMING, 0)) {
+            return concepts.map(RxnormOwlParserIT::describe).toList();
+        }
+    }
+
+    private static String describe(RxnormData data) {
+        return describe(data.toString(), data) + " | " + data.getEquivalentClassesStr();
+    }
+
+    private static String describe(String uri, RxnormData data) {
+        return uri + " | " + data.getRxnormName() + " | " + data.getRxnormSynonym() + " | " + data.getPrescribableSynonym()
+                + " | " + data.getSnomedCtId() + " | " + data.getRxCuiId() + " | " + data.getVuidId()
+                + " | " + data.getNdcCodes() + " | " + new TreeMap<>(data.getNdcCodesWithEndDates())
+                + " | " + data.getQualitativeDistinction() + " | " + data.getQuantity() + " | " + data.getSchedule()
+                + " | " + data.getHumanDrug() + " | " + data.getVetDrug() + " | " + data.getTallmanSynonyms();
+    }
+
+    private static String regexClassUri(String block) {
+        Matcher uriMatcher = Pattern.compile("<([^>]+)>").matcher(block);
+        return uriMatcher.find() ? uriMatcher.group(1) : null;
+    }
+
+    /**
+     * Reference implementation: the regular expression extraction used before the tokenizer
+     */
+    private static void regexExtractAnnotations(String block, RxnormData data) {
+        Matcher rxnormNameMatcher = Pattern.compile(":RxNorm_Name <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (rxnormNameMatcher.find()) {
+            data.setRxnormName(rxnormNameMatcher.group(1));
+        }
+
+        Matcher rxnormSynonymMatcher = Pattern.compile(":RxNorm_Synonym <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (rxnormSynonymMatcher.find()) {
+            data.setRxnormSynonym(rxnormSynonymMatcher.group(1));
+        }
+
+        Matcher prescribableSynonymMatcher = Pattern.compile(":Prescribable_Synonym <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (prescribableSynonymMatcher.find()) {
+            data.setPrescribableSynonym(prescribableSynonymMatcher.group(1));
+        }
+
+        Matcher snomedCtMatcher = Pattern.compile("oboInOwl:hasDbXref <[^>]+> \"SNOMEDCT:\\s*([^\"]*)\"").matcher(block);
+        if (snomedCtMatcher.find()) {
+            data.setSnomedCtId(snomedCtMatcher.group(1));
+        }
+
+        Matcher rxCuiMatcher = Pattern.compile("oboInOwl:hasDbXref <[^>]+> \"RxCUI:\\s*([^\"]*)\"").matcher(block);
+        if (rxCuiMatcher.find()) {
+            data.setRxCuiId(rxCuiMatcher.group(1));
+        }
+
+        Matcher vuidMatcher = Pattern.compile("oboInOwl:hasDbXref <[^>]+> \"VUID:\\s*([^\"]*)\"").matcher(block);
+        if (vuidMatcher.find()) {
+            data.setVuidId(vuidMatcher.group(1));
+        }
+
+        Matcher ndcMatcher = Pattern.compile("AnnotationAssertion\\(Annotation\\(:endDate \"(\\d+)\"\\) Annotation\\(:startDate \"\\d+\"\\) :ndc <[^>]+> \"([^\"]*)\"\\)").matcher(block);
+        while (ndcMatcher.find()) {
+            data.addNdcCodeWithEndDate(ndcMatcher.group(2), ndcMatcher.group(1));
+        }
+
+        Matcher qualitativeDistinctionMatcher = Pattern.compile(":QUALITATIVE_DISTINCTION <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (qualitativeDistinctionMatcher.find()) {
+            data.setQualitativeDistinction(qualitativeDistinctionMatcher.group(1));
+        }
+
+        Matcher quantityMatcher = Pattern.compile(":QUANTITY <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (quantityMatcher.find()) {
+            data.setQuantity(quantityMatcher.group(1));
+        }
+
+        Matcher scheduleMatcher = Pattern.compile(":SCHEDULE <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (scheduleMatcher.find()) {
+            data.setSchedule(scheduleMatcher.group(1));
+        }
+
+        Matcher humanDrugMatcher = Pattern.compile(":HUMAN_DRUG <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (humanDrugMatcher.find()) {
+            data.setHumanDrug(humanDrugMatcher.group(1));
+        }
+
+        Matcher vetDrugMatcher = Pattern.compile(":VET_DRUG <[^>]+> \"([^\"]*)\"").matcher(block);
+        if (vetDrugMatcher.find()) {
+            data.setVetDrug(vetDrugMatcher.group(1));
+        }
+
+        Matcher tallmanSynonymMatcher = Pattern.compile(":Tallman_Synonym <[^>]+> \"([^\"]*)\"").matcher(block);
+        while (tallmanSynonymMatcher.find()) {
+            data.addTallmanSynonym(tallmanSynonymMatcher.group(1));
+        }
+    }
+
+    /**
+     * Reference implementation: the two regular expression passes used before the single pass transform
+     */
+    private static String regexTransformOwlString(UUID namespace, String owlString) {
+        // First, let's handle URIs in the entire string
+        Pattern uriPattern = Pattern.compile("<(http://[^>]+)>");
+        Matcher matcher = uriPattern.matcher(owlString);
+        StringBuffer result = new StringBuffer();
+
+        while (matcher.find()) {
+            String uri = matcher.group(1);
+            String replacement;
+            // Process the URI based on its format
+            if (uri.startsWith("http://snomed.info/id/")) {
+                String id = uri.substring("http://snomed.info/id/".length());
+                EntityProxy.Concept concept = RxnormUtility.makeConceptProxy(namespace, id);
+                replacement = ":[" + concept.publicId().asUuidArray()[0] + "]";
+            } else if (uri.startsWith("http://mor.nlm.nih.gov/RXNORM/")) {
+                // RxNorm ID
+                String id = uri.substring("http://mor.nlm.nih.gov/RXNORM/".length());
+                EntityProxy.Concept concept = RxnormUtility.makeConceptProxy(namespace, id);
+                replacement = ":[" + concept.publicId().asUuidArray()[0] + "]";
+            } else {
+                // Unknown URI type, keep as is
+                replacement = "<" + uri + ">";
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+
+        // handle the DataHasValue expressions
+        String partialResult = result.toString();
+        Pattern dataValuePattern = Pattern.compile("DataHasValue\\(:[\\[](.*?)[\\]]\\s+\"([^\"]*)\"\\^\\^xsd:([^\\)]+)\\)|DataHasValue\\(<(http://[^>]+)>\\s+\"([^\"]*)\"\\^\\^xsd:([^\\)]+)\\)");
+        matcher = dataValuePattern.matcher(partialResult);
+        result = new StringBuffer();
+
+        while (matcher.find()) {
+            String replacement;
+            if (matcher.group(1) != null) {
+                // Already transformed URI
+                String conceptId = matcher.group(1);
+                String value = matcher.group(2);
+                String dataType = matcher.group(3);
+                replacement = "DataHasValue(:[" + conceptId + "] \"" + value + "\"^^xsd:" + dataType + ")";
+            } else {
+                // Original URI format
+                String uri = matcher.group(4);
+                String value = matcher.group(5);
+                String dataType = matcher.group(6);
+
+                if (uri.startsWith("http://snomed.info/id/")) {
+                    String id = uri.substring("http://snomed.info/id/".length());
+                    EntityProxy.Concept concept = RxnormUtility.makeConceptProxy(namespace, id);
+                    replacement = "DataHasValue(:[" + concept.publicId().asUuidArray()[0] + "] \"" +
+                            value + "\"^^xsd:" + dataType + ")";
+                } else {
+                    // Keep original format if URI type is unknown
+                    replacement = "DataHasValue(<" + uri + "> \"" + value + "\"^^xsd:" + dataType + ")";
+                }
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+}
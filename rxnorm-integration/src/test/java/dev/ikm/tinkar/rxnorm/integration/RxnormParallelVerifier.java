@@ -0,0 +1,114 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a read-only check of every concept on a ForkJoinPool, and writes the concepts that fail it to a report
+ * in file order, so the report is the same whatever the parallelism.
+ */
+public class RxnormParallelVerifier {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormParallelVerifier.class);
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism number of threads checking concepts, 0 or less for the number of available processors
+     */
+    public RxnormParallelVerifier(int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return the parallelism set by the verify.parallelism system property, the number of available processors if unset
+     */
+    public static RxnormParallelVerifier fromSystemProperty() {
+        String property = System.getProperty("verify.parallelism"); // property set in pom.xml
+        try {
+            return new RxnormParallelVerifier(property == null || property.isBlank() ? 0 : Integer.parseInt(property.trim()));
+        } catch (NumberFormatException e) {
+            LOG.warn("Ignoring verify.parallelism " + property + ", it is not a number");
+            return new RxnormParallelVerifier(0);
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Checks every concept and writes those that fail the check to the report, one per line in file order
+     *
+     * @param rxnormConcepts concepts to check
+     * @param check read-only check of a concept, called from several threads at once
+     * @param reportFile file the concepts failing the check are written to
+     * @return number of concepts failing the check
+     * @throws IOException if the report cannot be written
+     */
+    public int verify(List<RxnormData> rxnormConcepts, Predicate<RxnormData> check, String reportFile) throws IOException {
+        LongAdder notFound = new LongAdder();
+        List<Boolean> failed = map(rxnormConcepts, rxnormConcept -> {
+            if (check.test(rxnormConcept)) {
+                return false;
+            }
+            notFound.increment();
+            return true;
+        });
+
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(reportFile))) {
+            for (int index = 0; index < failed.size(); index++) {
+                if (failed.get(index)) {
+                    RxnormData rxnormConcept = rxnormConcepts.get(index);
+                    LOG.info("Element rxnormConcept NOT Found: " + rxnormConcept.toString());
+                    bw.write(rxnormConcept.toString());
+                    bw.newLine();
+                }
+            }
+        }
+        return notFound.intValue();
+    }
+
+    /**
+     * Applies a read-only function to every concept
+     *
+     * @param function function of a concept, called from several threads at once
+     * @return the results, in the order of the concepts
+     */
+    public <T> List<T> map(List<RxnormData> rxnormConcepts, Function<RxnormData, T> function) {
+        Object[] results = new Object[rxnormConcepts.size()]; // each index is written by one task only
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, rxnormConcepts.size()).parallel()
+                    .forEach(index -> results[index] = function.apply(rxnormConcepts.get(index)))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying concepts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) Arrays.asList(results);
+        return list;
+    }
+}
@@ -0,0 +1,61 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.tinkar.coordinate.Calculators;
+import dev.ikm.tinkar.entity.PatternEntityVersion;
+import dev.ikm.tinkar.entity.SemanticEntityVersion;
+import dev.ikm.tinkar.terms.ConceptFacade;
+import dev.ikm.tinkar.terms.EntityProxy;
+
+/**
+ * Reads the fields of the semantics of a pattern by index.
+ * <p>
+ * The latest version of the pattern is resolved once, and the index of the field with a meaning once per
+ * {@link Field}, instead of searching the field definitions of the pattern for every semantic read as
+ * {@link PatternEntityVersion#getFieldWithMeaning} does.
+ */
+public final class RxnormPatternAccessor {
+    private final int patternNid;
+    private final PatternEntityVersion latestPattern;
+
+    private RxnormPatternAccessor(int patternNid, PatternEntityVersion latestPattern) {
+        this.patternNid = patternNid;
+        this.latestPattern = latestPattern;
+    }
+
+    /**
+     * @return the accessor of the latest version of the pattern on the development path
+     */
+    public static RxnormPatternAccessor of(EntityProxy.Pattern pattern) {
+        return new RxnormPatternAccessor(pattern.nid(), (PatternEntityVersion) Calculators.Stamp.DevelopmentLatest().latest(pattern).get());
+    }
+
+    public int patternNid() {
+        return patternNid;
+    }
+
+    /**
+     * @param meaning meaning of the field
+     * @return the accessor of the field with the meaning
+     * @throws IllegalArgumentException if the pattern has no field with the meaning
+     */
+    public <T> Field<T> field(ConceptFacade meaning) {
+        int index = latestPattern.indexForMeaning(meaning);
+        if (index < 0) {
+            throw new IllegalArgumentException("Pattern " + latestPattern.entity().description() + " has no field with meaning " + meaning.description());
+        }
+        return new Field<>(index);
+    }
+
+    /**
+     * A field of the pattern, read by its index
+     */
+    public record Field<T>(int index) {
+        /**
+         * @return the value of the field in the semantic version
+         */
+        @SuppressWarnings("unchecked")
+        public T get(SemanticEntityVersion version) {
+            return (T) version.fieldValues().get(index);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormConceptColumns;
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormReleaseDelta;
+import dev.ikm.maven.RxnormUtility;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the delta between releases against the release itself and against an edited copy of it. This does not need the datastore.
+ */
+public class RxnormReleaseDeltaIT {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormReleaseDeltaIT.class);
+    static RxnormConceptColumns release;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(new File(System.getProperty("source.zip")))) { // property set in pom.xml
+            release = RxnormConceptColumns.of(streamed.iterator());
+        }
+    }
+
+    /**
+     * Test that a release has no changes against itself.
+     *
+     * @result Every concept is unchanged and nothing is composed.
+     */
+    @Test
+    public void testReleaseAgainstItselfHasNoChanges() {
+        RxnormReleaseDelta delta = RxnormReleaseDelta.of(release.stream().iterator());
+        List<RxnormData> changes = drain(delta.changes(release.stream().iterator()));
+
+        LOG.info("Release against itself: " + delta.getUnchanged() + " unchanged concepts");
+        assertTrue(changes.isEmpty(), "Unchanged release produced " + changes.size() + " changes");
+        assertEquals(0, delta.getAdded() + delta.getChanged() + delta.getRetired());
+    }
+
+    /**
+     * Test the delta against an edited copy of the release.
+     *
+     * @result The first concept is dropped, the second is renamed and gets an extra NDC code, and a new
+     * concept is appended; the delta reports exactly these, and the old name of the renamed concept as retired.
+     */
+    @Test
+    public void testEditedReleaseChanges() {
+        assertTrue(release.size() >= 2, "Release needs at least two concepts");
+        RxnormReleaseDelta delta = RxnormReleaseDelta.of(release.stream().iterator());
+
+        List<RxnormData> edited = new ArrayList<>(release.stream().skip(1).toList());
+        RxnormData renamed = edited.getFirst();
+        String previousName = renamed.getRxnormName();
+        renamed.setRxnormName(previousName + " renamed");
+        renamed.addNdcCodeWithEndDate("00000000000", "209912");
+        RxnormData added = new RxnormData("http://mor.nlm.nih.gov/RXNORM/999999999");
+        added.setRxnormName("Added concept");
+        edited.add(added);
+
+        List<RxnormData> changes = drain(delta.changes(edited.iterator()));
+
+        assertEquals(3, changes.size(), "Changes: " + changes);
+        assertEquals(renamed.getId(), changes.get(0).getId());
+        assertEquals(added.getId(), changes.get(1).getId());
+        assertEquals(release.rxnormData(0).getId(), changes.get(2).getId());
+        assertFalse(changes.get(0).isRetired());
+        assertTrue(changes.get(2).isRetired(), "Dropped concept should be retired");
+        assertEquals(1, delta.getChanged());
+        assertEquals(1, delta.getAdded());
+        assertEquals(1, delta.getRetired());
+        assertEquals(release.size() - 2, delta.getUnchanged());
+
+        RxnormData retiredValues = delta.retiredValues(renamed);
+        if (previousName.isEmpty()) {
+            assertNull(retiredValues, "Concept without a previous name has no retired values");
+        } else {
+            assertNotNull(retiredValues, "Renamed concept should retire its previous name");
+            assertEquals(previousName, retiredValues.getRxnormName());
+            assertEquals(0, retiredValues.ndcCodeCount(), "No NDC code was dropped");
+        }
+        assertNull(delta.retiredValues(added), "A new concept has no retired values");
+    }
+
+    /**
+     * Test that the retired concepts are passed on in the order of the previous release.
+     *
+     * @result Against an empty release, every identified concept of the previous release is retired, in release order.
+     */
+    @Test
+    public void testRetiredConceptsInPreviousReleaseOrder() {
+        RxnormReleaseDelta delta = RxnormReleaseDelta.of(release.stream().iterator());
+        List<String> retiredIds = drain(delta.changes(List.<RxnormData>of().iterator())).stream().map(RxnormData::getId).toList();
+
+        List<String> releaseIds = release.stream().map(RxnormData::getId).filter(Objects::nonNull).distinct().toList();
+        assertEquals(releaseIds, retiredIds, "Retired concepts not in previous release order");
+        assertEquals(releaseIds.size(), delta.getRetired());
+    }
+
+    private static List<RxnormData> drain(Iterator<RxnormData> changes) {
+        List<RxnormData> drained = new ArrayList<>();
+        changes.forEachRemaining(drained::add);
+        return drained;
+    }
+}
@@ -0,0 +1,107 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.tinkar.entity.EntityService;
+import dev.ikm.tinkar.entity.SemanticEntity;
+import dev.ikm.tinkar.entity.SemanticEntityVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Nids of the semantics of a set of patterns in a module, read with one sequential pass of each pattern and
+ * indexed by the nid of the component they reference.
+ * <p>
+ * Joining the parsed concepts against the index replaces a random lookup of the semantics of every concept
+ * for every pattern, and the semantics left over after the join are the orphans, the semantics in the
+ * datastore with no concept of the release. Only the nids are kept, semantics of other modules, such as those
+ * of the starter set, are left out, and the entities are read again when they are visited.
+ */
+public class RxnormSemanticIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormSemanticIndex.class);
+
+    private final Map<Integer, int[]> semanticNidsByComponent;
+    private final long semanticCount;
+
+    private RxnormSemanticIndex(Map<Integer, int[]> semanticNidsByComponent, long semanticCount) {
+        this.semanticNidsByComponent = semanticNidsByComponent;
+        this.semanticCount = semanticCount;
+    }
+
+    /**
+     * Reads every semantic of the patterns and keeps the nids of those with a version in the module
+     *
+     * @param moduleNid module the release is written in
+     * @param patternNids nids of the patterns to index
+     * @return the nids of the semantics of the patterns by referenced component nid
+     */
+    public static RxnormSemanticIndex of(int moduleNid, int... patternNids) {
+        long start = System.nanoTime();
+        Map<Integer, int[]> semanticNidsByComponent = new ConcurrentHashMap<>();
+        LongAdder semanticCount = new LongAdder();
+        for (int patternNid : patternNids) {
+            EntityService.get().forEachSemanticOfPattern(patternNid, semanticEntity -> {
+                if (semanticEntity.versions().anySatisfy(version -> version.moduleNid() == moduleNid)) {
+                    semanticNidsByComponent.compute(semanticEntity.referencedComponentNid(), (nid, semanticNids) -> {
+                        if (semanticNids == null) {
+                            return new int[]{semanticEntity.nid()};
+                        }
+                        int[] componentSemanticNids = Arrays.copyOf(semanticNids, semanticNids.length + 1);
+                        componentSemanticNids[semanticNids.length] = semanticEntity.nid();
+                        return componentSemanticNids;
+                    });
+                    semanticCount.increment();
+                }
+            });
+        }
+        LOG.info(String.format("Indexed %d semantics of %d patterns for %d components in %.1f ms",
+                semanticCount.sum(), patternNids.length, semanticNidsByComponent.size(), (System.nanoTime() - start) / 1e6));
+        return new RxnormSemanticIndex(semanticNidsByComponent, semanticCount.sum());
+    }
+
+    /**
+     * @return number of semantics indexed
+     */
+    public long getSemanticCount() {
+        return semanticCount;
+    }
+
+    /**
+     * Passes each indexed semantic referencing the component, read from the datastore, to the action
+     */
+    public void forEachSemanticForComponent(int componentNid, Consumer<SemanticEntity<SemanticEntityVersion>> action) {
+        int[] semanticNids = semanticNidsByComponent.get(componentNid);
+        if (semanticNids != null) {
+            for (int semanticNid : semanticNids) {
+                action.accept(EntityService.get().getEntityFast(semanticNid));
+            }
+        }
+    }
+
+    /**
+     * @param sourceComponent true for the nid of a component of the release
+     * @return the indexed semantics referencing no component of the release, by pattern then referenced component
+     */
+    public List<SemanticEntity<SemanticEntityVersion>> orphans(IntPredicate sourceComponent) {
+        List<SemanticEntity<SemanticEntityVersion>> orphans = new ArrayList<>();
+        semanticNidsByComponent.forEach((componentNid, semanticNids) -> {
+            if (!sourceComponent.test(componentNid)) {
+                for (int semanticNid : semanticNids) {
+                    orphans.add(EntityService.get().getEntityFast(semanticNid));
+                }
+            }
+        });
+        orphans.sort(Comparator.<SemanticEntity<SemanticEntityVersion>>comparingInt(SemanticEntity::patternNid)
+                .thenComparingInt(SemanticEntity::referencedComponentNid)
+                .thenComparingInt(SemanticEntity::nid));
+        return orphans;
+    }
+}
@@ -0,0 +1,467 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormUtility;
+import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.component.Component;
+import dev.ikm.tinkar.coordinate.Coordinates;
+import dev.ikm.tinkar.coordinate.stamp.StampCoordinateRecord;
+import dev.ikm.tinkar.coordinate.stamp.StampPositionRecord;
+import dev.ikm.tinkar.coordinate.stamp.StateSet;
+import dev.ikm.tinkar.coordinate.stamp.calculator.Latest;
+import dev.ikm.tinkar.coordinate.stamp.calculator.StampCalculator;
+import dev.ikm.tinkar.coordinate.stamp.calculator.StampCalculatorWithCache;
+import dev.ikm.tinkar.entity.ConceptRecord;
+import dev.ikm.tinkar.entity.EntityService;
+import dev.ikm.tinkar.entity.SemanticEntity;
+import dev.ikm.tinkar.entity.SemanticEntityVersion;
+import dev.ikm.tinkar.terms.EntityProxy;
+import dev.ikm.tinkar.terms.EntityProxy.Concept;
+import dev.ikm.tinkar.terms.TinkarTerm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static dev.ikm.tinkar.terms.TinkarTerm.DESCRIPTION_CASE_SENSITIVE;
+import static dev.ikm.tinkar.terms.TinkarTerm.DESCRIPTION_NOT_CASE_SENSITIVE;
+import static dev.ikm.tinkar.terms.TinkarTerm.ENGLISH_LANGUAGE;
+import static dev.ikm.tinkar.terms.TinkarTerm.FULLY_QUALIFIED_NAME_DESCRIPTION_TYPE;
+import static dev.ikm.tinkar.terms.TinkarTerm.PREFERRED;
+import static dev.ikm.tinkar.terms.TinkarTerm.REGULAR_NAME_DESCRIPTION_TYPE;
+
+/**
+ * Checks every kind of semantic of a concept against the release in a single walk of the concept's semantics.
+ * <p>
+ * Each semantic is read once, its latest active and inactive versions computed once, and it is dispatched on
+ * its pattern nid to the description, identifier, axiom or RxNorm pattern check. The checks are the same as
+ * the integration tests of each category made with a walk per pattern. The stamp calculators, and the latest
+ * version and field indexes of each pattern through {@link RxnormPatternAccessor}, are resolved once, and a
+ * verifier may check concepts from several threads at once. The semantics are either looked up per concept,
+ * or joined from a {@link RxnormSemanticIndex} read ahead pattern by pattern.
+ */
+public class RxnormSemanticVerifier {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormSemanticVerifier.class);
+
+    /**
+     * Categories of checks, one per integration test and not-found report
+     */
+    public enum Category {
+        CONCEPT,
+        DESCRIPTION,
+        IDENTIFIER,
+        STATED_DEFINITION,
+        PATTERN
+    }
+
+    private final UUID namespace;
+    private final StampCalculator conceptStampCalc;
+    private final StampCalculator stampCalcActive;
+    private final StampCalculator stampCalcInActive;
+
+    private final int descriptionPatternNid;
+    private final int identifierPatternNid;
+    private final int axiomPatternNid;
+    private final int qualitativeDistinctionPatternNid;
+    private final int quantityPatternNid;
+    private final int schedulePatternNid;
+    private final int humanDrugPatternNid;
+    private final int vetDrugPatternNid;
+    private final int tallmanSynonymPatternNid;
+
+    private final RxnormPatternAccessor.Field<String> descriptionText;
+    private final RxnormPatternAccessor.Field<Component> descriptionCaseSignificance;
+    private final RxnormPatternAccessor.Field<Component> descriptionType;
+    private final RxnormPatternAccessor.Field<Component> identifierSource;
+    private final RxnormPatternAccessor.Field<String> identifierValue;
+    private final RxnormPatternAccessor.Field<String> axiomSyntax;
+    private final RxnormPatternAccessor.Field<String> qualitativeDistinction;
+    private final RxnormPatternAccessor.Field<Component> qualitativeDistinctionLanguage;
+    private final RxnormPatternAccessor.Field<String> quantity;
+    private final RxnormPatternAccessor.Field<String> schedule;
+    private final RxnormPatternAccessor.Field<Component> scheduleLanguage;
+    private final RxnormPatternAccessor.Field<Concept> humanDrug;
+    private final RxnormPatternAccessor.Field<Concept> vetDrug;
+    private final RxnormPatternAccessor.Field<Component> tallmanSynonymLanguage;
+
+    /**
+     * @param namespace namespace the concept UUIDs were generated in
+     * @param timeForStamp time of the release, the concepts are checked at
+     */
+    public RxnormSemanticVerifier(UUID namespace, long timeForStamp) {
+        this.namespace = namespace;
+        StampPositionRecord stampPosition = StampPositionRecord.make(timeForStamp, TinkarTerm.DEVELOPMENT_PATH.nid());
+        this.conceptStampCalc = StampCoordinateRecord.make(StateSet.ACTIVE, stampPosition).stampCalculator();
+        this.stampCalcActive = StampCalculatorWithCache
+                .getCalculator(StampCoordinateRecord.make(StateSet.ACTIVE, Coordinates.Position.LatestOnDevelopment()));
+        this.stampCalcInActive = StampCalculatorWithCache
+                .getCalculator(StampCoordinateRecord.make(StateSet.INACTIVE, Coordinates.Position.LatestOnDevelopment()));
+
+        RxnormPatternAccessor descriptionPattern = RxnormPatternAccessor.of(TinkarTerm.DESCRIPTION_PATTERN);
+        this.descriptionPatternNid = descriptionPattern.patternNid();
+        this.descriptionText = descriptionPattern.field(TinkarTerm.TEXT_FOR_DESCRIPTION);
+        this.descriptionCaseSignificance = descriptionPattern.field(TinkarTerm.DESCRIPTION_CASE_SIGNIFICANCE);
+        this.descriptionType = descriptionPattern.field(TinkarTerm.DESCRIPTION_TYPE);
+
+        RxnormPatternAccessor identifierPattern = RxnormPatternAccessor.of(TinkarTerm.IDENTIFIER_PATTERN);
+        this.identifierPatternNid = identifierPattern.patternNid();
+        this.identifierSource = identifierPattern.field(TinkarTerm.IDENTIFIER_SOURCE);
+        this.identifierValue = identifierPattern.field(TinkarTerm.IDENTIFIER_VALUE);
+
+        RxnormPatternAccessor axiomPattern = RxnormPatternAccessor.of(TinkarTerm.OWL_AXIOM_SYNTAX_PATTERN);
+        this.axiomPatternNid = axiomPattern.patternNid();
+        this.axiomSyntax = axiomPattern.field(TinkarTerm.AXIOM_SYNTAX);
+
+        RxnormPatternAccessor qualitativeDistinctionPattern = RxnormPatternAccessor.of(RxnormUtility.getQualitativeDistinctionPattern());
+        this.qualitativeDistinctionPatternNid = qualitativeDistinctionPattern.patternNid();
+        this.qualitativeDistinction = qualitativeDistinctionPattern.field(RxnormUtility.getQualitativeDistinctionMeaning());
+        this.qualitativeDistinctionLanguage = qualitativeDistinctionPattern.field(RxnormUtility.getQualitativeLanguageMeaning());
+
+        RxnormPatternAccessor quantityPattern = RxnormPatternAccessor.of(RxnormUtility.getQuantityPattern());
+        this.quantityPatternNid = quantityPattern.patternNid();
+        this.quantity = quantityPattern.field(RxnormUtility.getQuantityDrugMeaning());
+
+        RxnormPatternAccessor schedulePattern = RxnormPatternAccessor.of(RxnormUtility.getSchedulePattern());
+        this.schedulePatternNid = schedulePattern.patternNid();
+        this.schedule = schedulePattern.field(RxnormUtility.getScheduleDrugMeaning());
+        this.scheduleLanguage = schedulePattern.field(RxnormUtility.getScheduleLanguageMeaning());
+
+        RxnormPatternAccessor humanDrugPattern = RxnormPatternAccessor.of(RxnormUtility.getHumanDrugPattern());
+        this.humanDrugPatternNid = humanDrugPattern.patternNid();
+        this.humanDrug = humanDrugPattern.field(RxnormUtility.getHumanDrugMeaning());
+
+        RxnormPatternAccessor vetDrugPattern = RxnormPatternAccessor.of(RxnormUtility.getVetDrugPattern());
+        this.vetDrugPatternNid = vetDrugPattern.patternNid();
+        this.vetDrug = vetDrugPattern.field(RxnormUtility.getVetDrugMeaning());
+
+        RxnormPatternAccessor tallmanSynonymPattern = RxnormPatternAccessor.of(RxnormUtility.getTallmanSynonymPattern());
+        this.tallmanSynonymPatternNid = tallmanSynonymPattern.patternNid();
+        this.tallmanSynonymLanguage = tallmanSynonymPattern.field(RxnormUtility.getTallmanSynonymMeaning());
+    }
+
+    /**
+     * @return nids of the patterns whose semantics are checked
+     */
+    public int[] patternNids() {
+        return new int[]{descriptionPatternNid, identifierPatternNid, axiomPatternNid, qualitativeDistinctionPatternNid,
+                quantityPatternNid, schedulePatternNid, humanDrugPatternNid, vetDrugPatternNid, tallmanSynonymPatternNid};
+    }
+
+    /**
+     * @return nid of the concept, or 0 if the concept has no RxNorm id
+     */
+    public int conceptNid(RxnormData rxnormData) {
+        if (rxnormData.getId() == null) {
+            return 0;
+        }
+        return EntityProxy.Concept.make(PublicIds.of(conceptUuid(rxnormData.getId()))).nid();
+    }
+
+    /**
+     * @return the categories whose semantics of the concept are not found in the datastore as they are in the release
+     */
+    public EnumSet<Category> notFound(RxnormData rxnormData) {
+        return notFound(rxnormData, (conceptNid, action) -> EntityService.get().forEachSemanticForComponent(conceptNid, action));
+    }
+
+    /**
+     * @param semanticIndex semantics of the {@link #patternNids() checked patterns}, read ahead of the concepts
+     * @return the categories whose semantics of the concept are not found in the index as they are in the release
+     */
+    public EnumSet<Category> notFound(RxnormData rxnormData, RxnormSemanticIndex semanticIndex) {
+        return notFound(rxnormData, semanticIndex::forEachSemanticForComponent);
+    }
+
+    private EnumSet<Category> notFound(RxnormData rxnormData, SemanticsForComponent semanticsForComponent) {
+        Walk walk = new Walk(rxnormData);
+        if (rxnormData.getId() != null) {
+            int conceptNid = conceptNid(rxnormData);
+            ConceptRecord entity = EntityService.get().getEntityFast(conceptNid);
+            walk.conceptFound = conceptStampCalc.latest(entity).isPresent();
+            semanticsForComponent.forEachSemanticForComponent(conceptNid, walk::accept);
+        }
+        return walk.notFound();
+    }
+
+    /**
+     * Source of the semantics of a concept, the datastore or an index
+     */
+    @FunctionalInterface
+    private interface SemanticsForComponent {
+        void forEachSemanticForComponent(int componentNid, Consumer<SemanticEntity<SemanticEntityVersion>> action);
+    }
+
+    private UUID conceptUuid(String id) {
+        return RxnormUtility.generateUUID(namespace, id + "rxnorm");
+    }
+
+    /**
+     * State of the checks of one concept, updated by each of its semantics in turn
+     */
+    private final class Walk {
+        private final RxnormData rxnormData;
+        private boolean conceptFound;
+
+        private boolean matchedName;
+        private boolean matchedSynonym;
+        private boolean matchedPrescribableSynonym;
+        private int matchedTallmanSynonyms;
+
+        private int snomedCount;
+        private int rxCuidCount;
+        private int vuidCount;
+        private int ndcCount;
+        private Set<String> ndcCodes;
+
+        private String owlExpression;
+        private boolean matchedOwlExpression;
+
+        private int qualitativeDistinctionCount;
+        private int quantityCount;
+        private int scheduleCount;
+        private int humanDrugCount;
+        private int vetDrugCount;
+        private int tallmanSynonymCount;
+        private Concept humanDrugConcept;
+        private Concept vetDrugConcept;
+
+        private Walk(RxnormData rxnormData) {
+            this.rxnormData = rxnormData;
+            this.matchedName = rxnormData.getRxnormName().isEmpty();
+            this.matchedSynonym = rxnormData.getRxnormSynonym().isEmpty();
+            this.matchedPrescribableSynonym = rxnormData.getPrescribableSynonym().isEmpty();
+        }
+
+        private void accept(SemanticEntity<SemanticEntityVersion> semanticEntity) {
+            int patternNid = semanticEntity.patternNid();
+            Latest<SemanticEntityVersion> latestActive = stampCalcActive.latest(semanticEntity);
+            if (patternNid == identifierPatternNid) {
+                if (latestActive.isPresent()) {
+                    identifier(latestActive.get(), true);
+                }
+                Latest<SemanticEntityVersion> latestInActive = stampCalcInActive.latest(semanticEntity);
+                if (latestInActive.isPresent()) {
+                    identifier(latestInActive.get(), false);
+                }
+                return;
+            }
+            if (!latestActive.isPresent()) {
+                return;
+            }
+            SemanticEntityVersion version = latestActive.get();
+            if (patternNid == descriptionPatternNid) {
+                description(version);
+            } else if (patternNid == axiomPatternNid) {
+                axiom(version);
+            } else if (patternNid == qualitativeDistinctionPatternNid) {
+                if (!rxnormData.getQualitativeDistinction().isEmpty()) {
+                    String source = qualitativeDistinction.get(version);
+                    Component componentValue = qualitativeDistinctionLanguage.get(version);
+                    if (rxnormData.getQualitativeDistinction().equals(source) && ENGLISH_LANGUAGE.equals(componentValue)) {
+                        qualitativeDistinctionCount++;
+                    }
+                }
+            } else if (patternNid == quantityPatternNid) {
+                if (!rxnormData.getQuantity().isEmpty()) {
+                    String source = quantity.get(version);
+                    if (rxnormData.getQuantity().equals(source)) {
+                        quantityCount++;
+                    }
+                }
+            } else if (patternNid == schedulePatternNid) {
+                if (!rxnormData.getSchedule().isEmpty()) {
+                    String source = schedule.get(version);
+                    Component componentValue = scheduleLanguage.get(version);
+                    if (rxnormData.getSchedule().equals(source) && ENGLISH_LANGUAGE.equals(componentValue)) {
+                        scheduleCount++;
+                    }
+                }
+            } else if (patternNid == humanDrugPatternNid) {
+                if (!rxnormData.getHumanDrug().isEmpty()) {
+                    if (humanDrugConcept == null) {
+                        humanDrugConcept = RxnormUtility.makeConceptProxy(namespace, rxnormData.getHumanDrug());
+                    }
+                    Concept source = humanDrug.get(version);
+                    if (humanDrugConcept.equals(source)) {
+                        humanDrugCount++;
+                    }
+                }
+            } else if (patternNid == vetDrugPatternNid) {
+                if (!rxnormData.getVetDrug().isEmpty()) {
+                    if (vetDrugConcept == null) {
+                        vetDrugConcept = RxnormUtility.makeConceptProxy(namespace, rxnormData.getVetDrug());
+                    }
+                    Concept source = vetDrug.get(version);
+                    if (vetDrugConcept.equals(source)) {
+                        vetDrugCount++;
+                    }
+                }
+            } else if (patternNid == tallmanSynonymPatternNid) {
+                if (!rxnormData.getTallmanSynonyms().isEmpty()) {
+                    Component source = tallmanSynonymLanguage.get(version);
+                    if (PREFERRED.equals(source)) {
+                        tallmanSynonymCount++;
+                    }
+                }
+            }
+        }
+
+        private void description(SemanticEntityVersion version) {
+            String textForDesc = descriptionText.get(version);
+            Component descCaseSignificance = descriptionCaseSignificance.get(version);
+            Component descType = descriptionType.get(version);
+
+            if (!matchedName
+                    && textForDesc.equals(rxnormData.getRxnormName())
+                    && descCaseSignificance.equals(DESCRIPTION_NOT_CASE_SENSITIVE)
+                    && descType.equals(FULLY_QUALIFIED_NAME_DESCRIPTION_TYPE)) {
+                matchedName = true;
+            }
+            if (!matchedSynonym
+                    && textForDesc.equals(rxnormData.getRxnormSynonym())
+                    && descCaseSignificance.equals(DESCRIPTION_NOT_CASE_SENSITIVE)
+                    && descType.equals(REGULAR_NAME_DESCRIPTION_TYPE)) {
+                matchedSynonym = true;
+            }
+            if (!matchedPrescribableSynonym
+                    && textForDesc.equals(rxnormData.getPrescribableSynonym())
+                    && descCaseSignificance.equals(DESCRIPTION_NOT_CASE_SENSITIVE)
+                    && descType.equals(REGULAR_NAME_DESCRIPTION_TYPE)) {
+                matchedPrescribableSynonym = true;
+            }
+            for (String synonym : rxnormData.getTallmanSynonyms()) {
+                if (textForDesc.equals(synonym)
+                        && descCaseSignificance.equals(DESCRIPTION_CASE_SENSITIVE)
+                        && descType.equals(REGULAR_NAME_DESCRIPTION_TYPE)) {
+                    matchedTallmanSynonyms++;
+                }
+            }
+        }
+
+        private void identifier(SemanticEntityVersion version, boolean active) {
+            Component component = identifierSource.get(version);
+            String value = identifierValue.get(version);
+            if (active) {
+                if (!rxnormData.getSnomedCtId().isEmpty()
+                        && rxnormData.getSnomedCtId().equals(value) && RxnormUtility.getSnomedIdentifierConcept().equals(component)) {
+                    snomedCount++;
+                }
+                if (!rxnormData.getRxCuiId().isEmpty()
+                        && rxnormData.getRxCuiId().equals(value) && RxnormUtility.getRxcuidConcept().equals(component)) {
+                    rxCuidCount++;
+                }
+                if (!rxnormData.getVuidId().isEmpty()
+                        && rxnormData.getVuidId().equals(value) && RxnormUtility.getVuidConcept().equals(component)) {
+                    vuidCount++;
+                }
+            }
+            if (ndcCodes().contains(value) && RxnormUtility.getNdcIdentifierConcept().equals(component)) {
+                ndcCount++;
+            }
+        }
+
+        /**
+         * @return the NDC codes of the concept that have an end date, collected on the first identifier of the walk
+         */
+        private Set<String> ndcCodes() {
+            if (ndcCodes == null) {
+                Set<String> codes = new HashSet<>();
+                rxnormData.forEachNdcCode((ndcCode, endDate) -> codes.add(ndcCode));
+                ndcCodes = codes;
+            }
+            return ndcCodes;
+        }
+
+        private void axiom(SemanticEntityVersion version) {
+            if (rxnormData.getEquivalentClassesStr().isEmpty()) {
+                return;
+            }
+            if (owlExpression == null) {
+                owlExpression = RxnormUtility.transformOwlString(namespace, rxnormData.getEquivalentClassesStr());
+            }
+            String axiomSyntaxText = axiomSyntax.get(version);
+            if (owlExpression.equals(axiomSyntaxText)) {
+                matchedOwlExpression = true;
+            }
+        }
+
+        private EnumSet<Category> notFound() {
+            EnumSet<Category> notFound = EnumSet.noneOf(Category.class);
+            boolean hasId = rxnormData.getId() != null;
+            if (!hasId || !conceptFound) {
+                notFound.add(Category.CONCEPT);
+            }
+            if (!hasId || !(matchedName && matchedSynonym && matchedPrescribableSynonym
+                    && matchedTallmanSynonyms == rxnormData.getTallmanSynonyms().size())) {
+                notFound.add(Category.DESCRIPTION);
+            }
+            if (!identifiersFound()) {
+                notFound.add(Category.IDENTIFIER);
+            }
+            if (!hasId || !(rxnormData.getEquivalentClassesStr().isEmpty() || matchedOwlExpression)) {
+                notFound.add(Category.STATED_DEFINITION);
+            }
+            if (!patternsFound()) {
+                notFound.add(Category.PATTERN);
+            }
+            return notFound;
+        }
+
+        private boolean identifiersFound() {
+            int owlSnomedCount = rxnormData.getSnomedCtId().isEmpty() ? 0 : 1;
+            int owlRxCuidCount = rxnormData.getRxCuiId().isEmpty() ? 0 : 1;
+            int owlVuidCount = rxnormData.getVuidId().isEmpty() ? 0 : 1;
+            int owlNdcCount = ndcCodes().size();
+            if (owlSnomedCount != snomedCount) {
+                LOG.error("snomedCtId [owlCount={},dbCount={}]", owlSnomedCount, snomedCount);
+            }
+            if (owlRxCuidCount != rxCuidCount) {
+                LOG.error("rxCuidCount [owlCount={},dbCount={}]", owlRxCuidCount, rxCuidCount);
+            }
+            if (owlVuidCount != vuidCount) {
+                LOG.error("vuidCount [owlCount={},dbCount={}]", owlVuidCount, vuidCount);
+            }
+            if (owlNdcCount != ndcCount) {
+                LOG.error("ndcCount [owlCount={},dbCount={}]", owlNdcCount, ndcCount);
+            }
+            return owlSnomedCount == snomedCount && owlRxCuidCount == rxCuidCount && owlVuidCount == vuidCount && owlNdcCount == ndcCount;
+        }
+
+        private boolean patternsFound() {
+            int owlQualitativeDistinctionCount = rxnormData.getQualitativeDistinction().isEmpty() ? 0 : 1;
+            int owlQuantityCount = rxnormData.getQuantity().isEmpty() ? 0 : 1;
+            int owlScheduleCount = rxnormData.getSchedule().isEmpty() ? 0 : 1;
+            int owlHumanDrugCount = rxnormData.getHumanDrug().isEmpty() ? 0 : 1;
+            int owlVetDrugCount = rxnormData.getVetDrug().isEmpty() ? 0 : 1;
+            int owlTallmanSynonymCount = rxnormData.getTallmanSynonyms().size();
+            if (owlQualitativeDistinctionCount != qualitativeDistinctionCount) {
+                LOG.error("QualitativeDistinction Pattern [owlCount={},dbCount={}]", owlQualitativeDistinctionCount, qualitativeDistinctionCount);
+            }
+            if (owlHumanDrugCount != humanDrugCount) {
+                LOG.error("HumanDrug Pattern [owlCount={},dbCount={}]", owlHumanDrugCount, humanDrugCount);
+            }
+            if (owlQuantityCount != quantityCount) {
+                LOG.error("Quantity Pattern [owlCount={},dbCount={}]", owlQuantityCount, quantityCount);
+            }
+            if (owlScheduleCount != scheduleCount) {
+                LOG.error("Schedule Pattern [owlCount={},dbCount={}]", owlScheduleCount, scheduleCount);
+            }
+            if (owlTallmanSynonymCount != tallmanSynonymCount) {
+                LOG.error("TallmanSynonym Pattern [owlCount={},dbCount={}]", owlTallmanSynonymCount, tallmanSynonymCount);
+            }
+            if (owlVetDrugCount != vetDrugCount) {
+                LOG.error("VetDrug Pattern [owlCount={},dbCount={}]", owlVetDrugCount, vetDrugCount);
+            }
+            return owlQualitativeDistinctionCount == qualitativeDistinctionCount
+                    && owlHumanDrugCount == humanDrugCount
+                    && owlQuantityCount == quantityCount
+                    && owlScheduleCount == scheduleCount
+                    && owlTallmanSynonymCount == tallmanSynonymCount
+                    && owlVetDrugCount == vetDrugCount;
+        }
+    }
+}
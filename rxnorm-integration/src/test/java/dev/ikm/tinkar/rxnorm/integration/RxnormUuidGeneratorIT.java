@@ -0,0 +1,166 @@
+package dev.ikm.tinkar.rxnorm.integration;
+
+import dev.ikm.maven.RxnormData;
+import dev.ikm.maven.RxnormUtility;
+import dev.ikm.maven.RxnormUuidGenerator;
+import dev.ikm.tinkar.common.util.uuid.UuidT5Generator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the batched type 5 UUID generator against UuidT5Generator for every identity of the release. This does not need the datastore.
+ */
+public class RxnormUuidGeneratorIT {
+    private static final Logger LOG = LoggerFactory.getLogger(RxnormUuidGeneratorIT.class);
+    private static final int TIMED_ROUNDS = 5;
+    static UUID namespace;
+    static List<RxnormData> rxnormConcepts;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        namespace = UUID.fromString(System.getProperty("origin.namespace")); // property set in pom.xml
+        try (Stream<RxnormData> streamed = RxnormUtility.streamRxnormData(new File(System.getProperty("source.zip")))) { // property set in pom.xml
+            rxnormConcepts = streamed.toList();
+        }
+    }
+
+    /**
+     * Test that the generator is bit-identical to UuidT5Generator.
+     *
+     * @result Generates the concept and semantic UUIDs of every concept both ways and compares them.
+     */
+    @Test
+    public void testGeneratorMatchesUuidT5Generator() throws IOException {
+        String errorFile = "target/failsafe-reports/Rxnorm_uuid_mismatches.txt";
+        List<UUID> expected = new ArrayList<>();
+        List<UUID> actual = new ArrayList<>();
+        RxnormUuidGenerator generator = new RxnormUuidGenerator(namespace);
+        for (RxnormData rxnormData : rxnormConcepts) {
+            generateWithUuidT5Generator(rxnormData, expected);
+            generateWithRxnormUuidGenerator(generator, rxnormData, actual);
+        }
+
+        int mismatches = 0;
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(errorFile))) {
+            for (int i = 0; i < expected.size(); i++) {
+                if (!expected.get(i).equals(actual.get(i))) {
+                    mismatches++;
+                    bw.write("expected: " + expected.get(i) + " actual: " + actual.get(i));
+                    bw.newLine();
+                }
+            }
+        }
+
+        LOG.info("Compared " + expected.size() + " UUIDs, mismatches: " + mismatches);
+        assertEquals(expected.size(), actual.size(), "Generated a different number of UUIDs");
+        assertEquals(0, mismatches, "Generator differs from UuidT5Generator for " + mismatches + " UUIDs. Details written to " + errorFile);
+    }
+
+    /**
+     * Time the generator against UuidT5Generator with concatenated names.
+     *
+     * @result Generates every UUID of the release both ways, after a warm up round, and writes the time per UUID to a report.
+     */
+    @Test
+    public void testGeneratorThroughput() throws IOException {
+        String reportFile = "target/failsafe-reports/Rxnorm_uuid_generation.txt";
+        RxnormUuidGenerator generator = new RxnormUuidGenerator(namespace);
+        List<UUID> uuids = new ArrayList<>();
+
+        double[] uuidT5Nanos = new double[TIMED_ROUNDS + 1];
+        double[] generatorNanos = new double[TIMED_ROUNDS + 1];
+        for (int round = 0; round <= TIMED_ROUNDS; round++) {
+            uuids.clear();
+            long start = System.nanoTime();
+            for (RxnormData rxnormData : rxnormConcepts) {
+                generateWithUuidT5Generator(rxnormData, uuids);
+            }
+            uuidT5Nanos[round] = (System.nanoTime() - start) / (double) uuids.size();
+
+            uuids.clear();
+            start = System.nanoTime();
+            for (RxnormData rxnormData : rxnormConcepts) {
+                generateWithRxnormUuidGenerator(generator, rxnormData, uuids);
+            }
+            generatorNanos[round] = (System.nanoTime() - start) / (double) uuids.size();
+        }
+
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(reportFile))) {
+            bw.write("round\tuuids\tUuidT5Generator ns/uuid\tRxnormUuidGenerator ns/uuid\tspeedup");
+            bw.newLine();
+            // Round 0 warms up both generators and is not reported
+            for (int round = 1; round <= TIMED_ROUNDS; round++) {
+                String line = String.format("%d\t%d\t%.1f\t%.1f\t%.2f", round, uuids.size(), uuidT5Nanos[round], generatorNanos[round],
+                        uuidT5Nanos[round] / generatorNanos[round]);
+                LOG.info("UUID generation: " + line);
+                bw.write(line);
+                bw.newLine();
+            }
+        }
+    }
+
+    /**
+     * The identities composed by RxnormTransformationMojo, generated as it did before the batched generator
+     */
+    private static void generateWithUuidT5Generator(RxnormData rxnormData, List<UUID> uuids) {
+        UUID conceptUuid = UuidT5Generator.get(namespace, rxnormData.getId() + "rxnorm");
+        uuids.add(conceptUuid);
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getRxnormName() + "DESC"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getRxnormSynonym() + "SDESC"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getPrescribableSynonym() + "PSDESC"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getSnomedCtId() + "SNOMEDID"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getRxCuiId() + "RXID"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getVuidId() + "VUID"));
+        for (String ndcCode : rxnormData.getNdcCodes()) {
+            uuids.add(UuidT5Generator.get(namespace, conceptUuid + ndcCode + "NDCID"));
+        }
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getEquivalentClassesStr() + "AXIOM"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getQualitativeDistinction() + "QD"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getQuantity() + "QUANTITY"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getSchedule() + "SCHEDULE"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getHumanDrug() + "HD"));
+        uuids.add(UuidT5Generator.get(namespace, conceptUuid + rxnormData.getVetDrug() + "VD"));
+        for (String synonym : rxnormData.getTallmanSynonyms()) {
+            uuids.add(UuidT5Generator.get(namespace, conceptUuid + synonym + "TSDESC"));
+            uuids.add(UuidT5Generator.get(namespace, conceptUuid + synonym + "Tallman"));
+        }
+    }
+
+    private static void generateWithRxnormUuidGenerator(RxnormUuidGenerator generator, RxnormData rxnormData, List<UUID> uuids) {
+        UUID conceptUuid = generator.get(rxnormData.getId(), "rxnorm");
+        uuids.add(conceptUuid);
+        RxnormUuidGenerator.ConceptUuids semanticUuids = generator.forConcept(conceptUuid);
+        uuids.add(semanticUuids.get(rxnormData.getRxnormName(), "DESC"));
+        uuids.add(semanticUuids.get(rxnormData.getRxnormSynonym(), "SDESC"));
+        uuids.add(semanticUuids.get(rxnormData.getPrescribableSynonym(), "PSDESC"));
+        uuids.add(semanticUuids.get(rxnormData.getSnomedCtId(), "SNOMEDID"));
+        uuids.add(semanticUuids.get(rxnormData.getRxCuiId(), "RXID"));
+        uuids.add(semanticUuids.get(rxnormData.getVuidId(), "VUID"));
+        for (String ndcCode : rxnormData.getNdcCodes()) {
+            uuids.add(semanticUuids.get(ndcCode, "NDCID"));
+        }
+        uuids.add(semanticUuids.get(rxnormData.getEquivalentClassesStr(), "AXIOM"));
+        uuids.add(semanticUuids.get(rxnormData.getQualitativeDistinction(), "QD"));
+        uuids.add(semanticUuids.get(rxnormData.getQuantity(), "QUANTITY"));
+        uuids.add(semanticUuids.get(rxnormData.getSchedule(), "SCHEDULE"));
+        uuids.add(semanticUuids.get(rxnormData.getHumanDrug(), "HD"));
+        uuids.add(semanticUuids.get(rxnormData.getVetDrug(), "VD"));
+        for (String synonym : rxnormData.getTallmanSynonyms()) {
+            uuids.add(semanticUuids.get(synonym, "TSDESC"));
+            uuids.add(semanticUuids.get(synonym, "Tallman"));
+        }
+    }
+}